@@ -0,0 +1,184 @@
+package com.gcjewellers.rateswidget;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Drives periodic live-rate polling on the main thread with an adaptive cadence.
+ *
+ * At most one poll is outstanding at any time: the next one is only scheduled once the
+ * previous poll reports back. The interval tightens to {@link #VOLATILE_INTERVAL_MS}
+ * when rates move sharply, backs off while responses are unchanged or failing, and
+ * uses a much slower ceiling outside MCX trading hours.
+ */
+public class AdaptivePollScheduler {
+    private static final String TAG = "AdaptivePollScheduler";
+
+    // Market-hours cadence
+    private static final long VOLATILE_INTERVAL_MS = 2000;
+    private static final long ACTIVE_INTERVAL_MS = 5000;
+    private static final long MAX_OPEN_INTERVAL_MS = 30000;
+
+    // Outside trading hours
+    private static final long CLOSED_INTERVAL_MS = 60000;
+    private static final long MAX_CLOSED_INTERVAL_MS = 5 * 60000;
+
+    private static final double BACKOFF_FACTOR = 1.5;
+
+    // Relative move (0.05%) on any instrument that counts as a volatile tick
+    private static final double VOLATILE_MOVE = 0.0005;
+
+    // MCX session in IST, Monday to Friday
+    private static final TimeZone MARKET_TIME_ZONE = TimeZone.getTimeZone("Asia/Kolkata");
+    private static final int MARKET_OPEN_MINUTE = 9 * 60;
+    private static final int MARKET_CLOSE_MINUTE = 23 * 60 + 30;
+
+    public interface PollTask {
+        void poll(Completion completion);
+    }
+
+    /**
+     * Reported exactly once by the task for every poll.
+     */
+    public interface Completion {
+        void onChanged(double maxRelativeMove);
+        void onUnchanged();
+        void onFailed();
+    }
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final PollTask task;
+    private final Runnable pollRunnable = this::pollNow;
+
+    private boolean running = false;
+    private boolean inFlight = false;
+    private long intervalMs = ACTIVE_INTERVAL_MS;
+
+    public AdaptivePollScheduler(PollTask task) {
+        this.task = task;
+    }
+
+    /**
+     * Starts periodic polling with an immediate poll.
+     */
+    public void start() {
+        running = true;
+        pollNow();
+    }
+
+    /**
+     * Stops scheduling further polls; a poll already in flight is allowed to finish.
+     */
+    public void stop() {
+        running = false;
+        handler.removeCallbacks(pollRunnable);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Polls right away unless a poll is already outstanding.
+     */
+    public void pollNow() {
+        handler.removeCallbacks(pollRunnable);
+        if (inFlight) {
+            return;
+        }
+        inFlight = true;
+        task.poll(new OneShotCompletion());
+    }
+
+    private void onPollFinished(long nextIntervalMs) {
+        inFlight = false;
+        intervalMs = nextIntervalMs;
+        if (running) {
+            handler.removeCallbacks(pollRunnable);
+            handler.postDelayed(pollRunnable, intervalMs);
+        }
+    }
+
+    private long backedOff(long current) {
+        boolean open = isMarketOpen(System.currentTimeMillis());
+        long floor = open ? ACTIVE_INTERVAL_MS : CLOSED_INTERVAL_MS;
+        long ceiling = open ? MAX_OPEN_INTERVAL_MS : MAX_CLOSED_INTERVAL_MS;
+        return Math.min(ceiling, Math.max(floor, (long) (current * BACKOFF_FACTOR)));
+    }
+
+    static boolean isMarketOpen(long timeMillis) {
+        Calendar calendar = Calendar.getInstance(MARKET_TIME_ZONE);
+        calendar.setTimeInMillis(timeMillis);
+        int day = calendar.get(Calendar.DAY_OF_WEEK);
+        if (day == Calendar.SATURDAY || day == Calendar.SUNDAY) {
+            return false;
+        }
+        int minute = calendar.get(Calendar.HOUR_OF_DAY) * 60 + calendar.get(Calendar.MINUTE);
+        return minute >= MARKET_OPEN_MINUTE && minute < MARKET_CLOSE_MINUTE;
+    }
+
+    /**
+     * Ignores duplicate reports and hops back to the main thread.
+     */
+    private class OneShotCompletion implements Completion {
+        private boolean done = false;
+        private final long startedAt = SystemClock.elapsedRealtime();
+
+        private boolean claim() {
+            synchronized (this) {
+                if (done) {
+                    return false;
+                }
+                done = true;
+                return true;
+            }
+        }
+
+        @Override
+        public void onChanged(double maxRelativeMove) {
+            if (!claim()) return;
+            handler.post(() -> {
+                long next;
+                if (!isMarketOpen(System.currentTimeMillis())) {
+                    next = CLOSED_INTERVAL_MS;
+                } else if (maxRelativeMove >= VOLATILE_MOVE) {
+                    next = VOLATILE_INTERVAL_MS;
+                } else {
+                    next = ACTIVE_INTERVAL_MS;
+                }
+                log("changed", next);
+                onPollFinished(next);
+            });
+        }
+
+        @Override
+        public void onUnchanged() {
+            if (!claim()) return;
+            handler.post(() -> {
+                long next = backedOff(intervalMs);
+                log("unchanged", next);
+                onPollFinished(next);
+            });
+        }
+
+        @Override
+        public void onFailed() {
+            if (!claim()) return;
+            handler.post(() -> {
+                long next = backedOff(backedOff(intervalMs));
+                log("failed", next);
+                onPollFinished(next);
+            });
+        }
+
+        private void log(String outcome, long next) {
+            Log.d(TAG, "Poll " + outcome + " in " + (SystemClock.elapsedRealtime() - startedAt)
+                    + " ms, next in " + next + " ms");
+        }
+    }
+}
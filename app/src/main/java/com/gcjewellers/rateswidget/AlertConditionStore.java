@@ -0,0 +1,211 @@
+package com.gcjewellers.rateswidget;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * On-device store of rate alert conditions, one row per condition.
+ *
+ * {@link RateCheckActivity} writes only the conditions it added, changed or removed, and
+ * {@link AlertEngine} reads them already ordered by instrument and threshold through the
+ * table's index, so neither side parses a serialized list. Conditions saved by older
+ * versions as a JSON string in SharedPreferences are imported when the database is first
+ * created. All methods do disk I/O and must be called off the main thread.
+ */
+public final class AlertConditionStore {
+    private static final String TAG = "AlertConditionStore";
+    private static final String DATABASE_NAME = "alert_conditions.db";
+    private static final int DATABASE_VERSION = 1;
+
+    // Where conditions were kept before this store
+    private static final String LEGACY_PREFS_NAME = "RateAlertPrefs";
+    private static final String LEGACY_CONDITIONS_KEY = "AlertConditions";
+
+    private static volatile AlertConditionStore instance;
+
+    private final Helper helper;
+
+    /**
+     * One alert condition. {@code id} is 0 until the condition is first saved, and
+     * {@code threshold} is NaN while the user has not entered one.
+     */
+    public static final class Condition {
+        public long id;
+        public int instrument = LiveQuote.GOLD;
+        public int direction = AlertEngine.DIRECTION_MATCH;
+        public double threshold = Double.NaN;
+    }
+
+    private AlertConditionStore(Context context) {
+        helper = new Helper(context);
+    }
+
+    public static AlertConditionStore getInstance(Context context) {
+        if (instance == null) {
+            synchronized (AlertConditionStore.class) {
+                if (instance == null) {
+                    instance = new AlertConditionStore(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Every condition in the order it was created.
+     */
+    public List<Condition> getConditions() {
+        return query("SELECT id, instrument, direction, threshold FROM conditions ORDER BY id");
+    }
+
+    /**
+     * Conditions that have a threshold, ordered by instrument and then ascending threshold.
+     */
+    public List<Condition> getConditionsByThreshold() {
+        return query("SELECT id, instrument, direction, threshold FROM conditions"
+                + " WHERE threshold IS NOT NULL ORDER BY instrument, threshold");
+    }
+
+    private List<Condition> query(String sql) {
+        SQLiteDatabase db = helper.getReadableDatabase();
+        try (Cursor cursor = db.rawQuery(sql, null)) {
+            List<Condition> conditions = new ArrayList<>(cursor.getCount());
+            while (cursor.moveToNext()) {
+                Condition condition = new Condition();
+                condition.id = cursor.getLong(0);
+                condition.instrument = cursor.getInt(1);
+                condition.direction = cursor.getInt(2);
+                condition.threshold = cursor.isNull(3) ? Double.NaN : cursor.getDouble(3);
+                conditions.add(condition);
+            }
+            return conditions;
+        }
+    }
+
+    /**
+     * Writes the given conditions and deletes the given ids in one transaction. Conditions
+     * with id 0 are inserted and receive their new id; the rest are updated in place.
+     */
+    public void applyChanges(Collection<Condition> changed, long[] deletedIds) {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        SQLiteStatement insert = db.compileStatement(
+                "INSERT INTO conditions (instrument, direction, threshold) VALUES (?, ?, ?)");
+        SQLiteStatement update = db.compileStatement(
+                "UPDATE conditions SET instrument = ?, direction = ?, threshold = ? WHERE id = ?");
+        SQLiteStatement delete = db.compileStatement("DELETE FROM conditions WHERE id = ?");
+        db.beginTransaction();
+        try {
+            for (long id : deletedIds) {
+                delete.bindLong(1, id);
+                delete.executeUpdateDelete();
+            }
+            for (Condition condition : changed) {
+                SQLiteStatement statement = condition.id == 0 ? insert : update;
+                bindCondition(statement, condition);
+                if (condition.id == 0) {
+                    condition.id = insert.executeInsert();
+                } else {
+                    update.bindLong(4, condition.id);
+                    update.executeUpdateDelete();
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+            update.close();
+            delete.close();
+        }
+        Log.d(TAG, "Saved " + changed.size() + " conditions, deleted " + deletedIds.length);
+    }
+
+    private static void bindCondition(SQLiteStatement statement, Condition condition) {
+        statement.clearBindings();
+        statement.bindLong(1, condition.instrument);
+        statement.bindLong(2, condition.direction);
+        if (Double.isNaN(condition.threshold)) {
+            statement.bindNull(3);
+        } else {
+            statement.bindDouble(3, condition.threshold);
+        }
+    }
+
+    private static final class Helper extends SQLiteOpenHelper {
+        private final Context context;
+
+        Helper(Context context) {
+            super(context, DATABASE_NAME, null, DATABASE_VERSION);
+            this.context = context;
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE conditions ("
+                    + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                    + "instrument INTEGER NOT NULL, "
+                    + "direction INTEGER NOT NULL, "
+                    + "threshold REAL)");
+            db.execSQL("CREATE INDEX conditions_by_threshold ON conditions (instrument, threshold)");
+            importLegacyConditions(db);
+        }
+
+        /**
+         * Copies conditions from the SharedPreferences JSON string into the new table and
+         * drops the string.
+         */
+        private void importLegacyConditions(SQLiteDatabase db) {
+            SharedPreferences prefs = context.getSharedPreferences(LEGACY_PREFS_NAME, Context.MODE_PRIVATE);
+            String json = prefs.getString(LEGACY_CONDITIONS_KEY, null);
+            if (json == null) {
+                return;
+            }
+            List<Condition> conditions = new ArrayList<>();
+            try {
+                JSONArray array = new JSONArray(json);
+                for (int i = 0; i < array.length(); i++) {
+                    JSONObject item = array.optJSONObject(i);
+                    if (item == null) {
+                        continue;
+                    }
+                    Condition condition = new Condition();
+                    condition.instrument = "Silver".equalsIgnoreCase(item.optString("metal", "Gold"))
+                            ? LiveQuote.SILVER_FUTURE : LiveQuote.GOLD;
+                    condition.direction = AlertEngine.parseDirection(item.optString("condition", "Match"));
+                    condition.threshold = LiveQuote.parseRate(item.optString("threshold", ""));
+                    conditions.add(condition);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error reading saved alert conditions", e);
+            }
+            SQLiteStatement insert = db.compileStatement(
+                    "INSERT INTO conditions (instrument, direction, threshold) VALUES (?, ?, ?)");
+            try {
+                for (Condition condition : conditions) {
+                    bindCondition(insert, condition);
+                    insert.executeInsert();
+                }
+            } finally {
+                insert.close();
+            }
+            prefs.edit().remove(LEGACY_CONDITIONS_KEY).apply();
+            Log.d(TAG, "Imported " + conditions.size() + " alert conditions");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            // Only one version so far
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package com.gcjewellers.rateswidget;
+
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Evaluates the rate alert conditions in {@link AlertConditionStore} against every new
+ * live snapshot and notifies when one is met.
+ *
+ * Conditions are read once, already ordered by the store's index, into one threshold
+ * array grouped by instrument and ascending within each group, with parallel condition
+ * ids and directions. A tick only has to find the thresholds lying between the
+ * previous and the current price, which is two binary searches plus the conditions that
+ * actually fire, so the cost per tick stays flat however many thresholds are saved.
+ *
+ * A condition fires when the price crosses or touches its threshold in its direction
+ * (either direction for Match), then stays disarmed until the price retreats past the
+ * threshold by {@link #REARM_BAND}, so a price hovering at the level alerts only once.
+ * The previous prices and disarmed conditions are persisted, so crossings between
+ * periodic refreshes in different processes are still caught.
+ */
+public final class AlertEngine {
+    private static final String TAG = "AlertEngine";
+
+    private static final String STATE_PREFS_NAME = "AlertEngineState";
+    private static final String KEY_LAST_PRICE = "lastPrice_";
+    private static final String KEY_DISARMED = "disarmed";
+
+    private static final String CHANNEL_ID = "rate_alerts";
+    // Notification ids are this plus the condition id
+    private static final int NOTIFICATION_ID_BASE = 1000;
+
+    static final int DIRECTION_MATCH = 0;
+    static final int DIRECTION_BELOW = 1;
+    static final int DIRECTION_ABOVE = 2;
+
+    // Fraction of the threshold the price must move back before a fired condition re-arms
+    static final double REARM_BAND = 0.001;
+
+    private static AlertEngine instance;
+
+    private final Context context;
+    private final SharedPreferences statePrefs;
+
+    // Compiled conditions; null until first needed or after reload()
+    private Index index;
+    private final double[] lastPrice = new double[LiveQuote.INSTRUMENT_COUNT];
+    private long lastVersion = -1;
+
+    // Fired conditions awaiting re-arm, as a flag per slot and a compact list for scanning
+    private boolean[] disarmed = new boolean[0];
+    private int[] disarmedIds = new int[0];
+    private int disarmedCount;
+
+    /**
+     * Conditions grouped by instrument and sorted by threshold within each group; a
+     * condition's position in these arrays is its slot.
+     */
+    private static final class Index {
+        // Instrument i owns slots [starts[i], starts[i + 1])
+        final int[] starts;
+        final double[] thresholds;
+        final long[] conditionIds;
+        final int[] instrument;
+        final int[] direction;
+
+        Index(int[] starts, double[] thresholds, long[] conditionIds, int[] instrument, int[] direction) {
+            this.starts = starts;
+            this.thresholds = thresholds;
+            this.conditionIds = conditionIds;
+            this.instrument = instrument;
+            this.direction = direction;
+        }
+
+        int size() {
+            return thresholds.length;
+        }
+    }
+
+    public static synchronized AlertEngine getInstance(Context context) {
+        if (instance == null) {
+            instance = new AlertEngine(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private AlertEngine(Context context) {
+        this.context = context;
+        this.statePrefs = context.getSharedPreferences(STATE_PREFS_NAME, Context.MODE_PRIVATE);
+        for (int instrument = 0; instrument < LiveQuote.INSTRUMENT_COUNT; instrument++) {
+            lastPrice[instrument] = Double.longBitsToDouble(statePrefs.getLong(
+                    KEY_LAST_PRICE + instrument, Double.doubleToRawLongBits(Double.NaN)));
+        }
+    }
+
+    /**
+     * Drops the compiled conditions; call after the saved conditions change. Only the
+     * conditions in {@code changedIds}, edited or removed, lose their fired state, so
+     * untouched alerts already past their threshold do not fire again.
+     */
+    public synchronized void reload(long[] changedIds) {
+        long[] reset = Arrays.copyOf(changedIds, changedIds.length);
+        Arrays.sort(reset);
+        StringBuilder builder = new StringBuilder();
+        for (long id : readDisarmedIds()) {
+            if (Arrays.binarySearch(reset, id) >= 0) {
+                continue;
+            }
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(id);
+        }
+        statePrefs.edit().putString(KEY_DISARMED, builder.toString()).apply();
+
+        // load() restores the rest from the saved state
+        index = null;
+        disarmed = new boolean[0];
+        disarmedCount = 0;
+    }
+
+    /**
+     * Checks one snapshot against every condition. Snapshots older than the last one
+     * evaluated are ignored.
+     */
+    public synchronized void evaluate(LiveQuote quote) {
+        if (quote.getVersion() <= lastVersion) {
+            return;
+        }
+        lastVersion = quote.getVersion();
+        if (index == null) {
+            load();
+        }
+
+        boolean disarmedChanged = false;
+        for (int instrument = 0; instrument < LiveQuote.INSTRUMENT_COUNT; instrument++) {
+            double price = quote.getSell(instrument);
+            if (Double.isNaN(price)) {
+                continue;
+            }
+            double previous = lastPrice[instrument];
+            lastPrice[instrument] = price;
+            int first = index.starts[instrument];
+            int last = index.starts[instrument + 1];
+            if (first == last) {
+                continue;
+            }
+            disarmedChanged |= rearm(instrument, price);
+            if (Double.isNaN(previous) || previous == price) {
+                continue;
+            }
+
+            double[] thresholds = index.thresholds;
+            if (price < previous) {
+                // Falling: thresholds in [price, previous)
+                int to = lowerBound(thresholds, first, last, previous);
+                for (int slot = lowerBound(thresholds, first, last, price); slot < to; slot++) {
+                    if (index.direction[slot] != DIRECTION_ABOVE) {
+                        disarmedChanged |= fire(slot, price);
+                    }
+                }
+            } else {
+                // Rising: thresholds in (previous, price]
+                int to = upperBound(thresholds, first, last, price);
+                for (int slot = upperBound(thresholds, first, last, previous); slot < to; slot++) {
+                    if (index.direction[slot] != DIRECTION_BELOW) {
+                        disarmedChanged |= fire(slot, price);
+                    }
+                }
+            }
+        }
+        saveState(disarmedChanged);
+    }
+
+    /**
+     * Re-arms fired conditions on the instrument that the price has moved clear of.
+     *
+     * @return true if any condition was re-armed
+     */
+    private boolean rearm(int instrument, double price) {
+        boolean changed = false;
+        int i = 0;
+        while (i < disarmedCount) {
+            int slot = disarmedIds[i];
+            if (index.instrument[slot] != instrument || !isClear(slot, price)) {
+                i++;
+                continue;
+            }
+            disarmed[slot] = false;
+            disarmedIds[i] = disarmedIds[--disarmedCount];
+            changed = true;
+        }
+        return changed;
+    }
+
+    private boolean isClear(int slot, double price) {
+        double threshold = index.thresholds[slot];
+        double band = Math.abs(threshold) * REARM_BAND;
+        switch (index.direction[slot]) {
+            case DIRECTION_BELOW:
+                return price >= threshold + band;
+            case DIRECTION_ABOVE:
+                return price <= threshold - band;
+            default:
+                return Math.abs(price - threshold) >= band;
+        }
+    }
+
+    /**
+     * Notifies for the condition unless it is still disarmed from an earlier alert.
+     *
+     * @return true if the condition was disarmed by this call
+     */
+    private boolean fire(int slot, double price) {
+        if (disarmed[slot]) {
+            return false;
+        }
+        disarmed[slot] = true;
+        disarmedIds[disarmedCount++] = slot;
+        notifyCondition(slot, price);
+        return true;
+    }
+
+    private void notifyCondition(int slot, double price) {
+        long id = index.conditionIds[slot];
+        String metal = index.instrument[slot] == LiveQuote.SILVER_FUTURE ? "Silver" : "Gold";
+        String verb;
+        switch (index.direction[slot]) {
+            case DIRECTION_BELOW:
+                verb = "fell below";
+                break;
+            case DIRECTION_ABOVE:
+                verb = "rose above";
+                break;
+            default:
+                verb = "reached";
+                break;
+        }
+        String text = String.format(Locale.getDefault(), "%s %s ₹%,.2f (now ₹%,.2f)",
+                metal, verb, index.thresholds[slot], price);
+        Log.d(TAG, "Alert " + id + ": " + text);
+
+        NotificationManagerCompat manager = NotificationManagerCompat.from(context);
+        if (!manager.areNotificationsEnabled()) {
+            return;
+        }
+        createChannel();
+        Intent intent = new Intent(context, RateCheckActivity.class);
+        PendingIntent contentIntent = PendingIntent.getActivity(context, 0, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_alerts)
+                .setContentTitle("Rate alert")
+                .setContentText(text)
+                .setContentIntent(contentIntent)
+                .setAutoCancel(true)
+                .setPriority(NotificationCompat.PRIORITY_HIGH);
+        try {
+            manager.notify(NOTIFICATION_ID_BASE + (int) id, builder.build());
+        } catch (SecurityException e) {
+            Log.w(TAG, "Notification permission not granted", e);
+        }
+    }
+
+    private void createChannel() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            return;
+        }
+        NotificationManager manager = context.getSystemService(NotificationManager.class);
+        if (manager != null && manager.getNotificationChannel(CHANNEL_ID) == null) {
+            manager.createNotificationChannel(new NotificationChannel(CHANNEL_ID,
+                    "Rate alerts", NotificationManager.IMPORTANCE_HIGH));
+        }
+    }
+
+    /**
+     * Compiles the stored conditions into the index and restores which of them are
+     * disarmed.
+     */
+    private void load() {
+        List<AlertConditionStore.Condition> conditions = new ArrayList<>();
+        try {
+            conditions = AlertConditionStore.getInstance(context).getConditionsByThreshold();
+        } catch (Exception e) {
+            Log.e(TAG, "Error reading alert conditions", e);
+        }
+        index = compile(conditions);
+        Log.d(TAG, "Compiled " + index.size() + " alert conditions");
+
+        disarmed = new boolean[index.size()];
+        disarmedIds = new int[index.size()];
+        disarmedCount = 0;
+        long[] savedIds = readDisarmedIds();
+        Arrays.sort(savedIds);
+        for (int slot = 0; slot < index.size(); slot++) {
+            if (Arrays.binarySearch(savedIds, index.conditionIds[slot]) >= 0) {
+                disarmed[slot] = true;
+                disarmedIds[disarmedCount++] = slot;
+            }
+        }
+    }
+
+    /**
+     * Ids of the conditions saved as disarmed; kept up to date by every evaluation.
+     */
+    private long[] readDisarmedIds() {
+        String saved = statePrefs.getString(KEY_DISARMED, "");
+        if (saved.isEmpty()) {
+            return new long[0];
+        }
+        try {
+            String[] parts = saved.split(",");
+            long[] ids = new long[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                ids[i] = Long.parseLong(parts[i]);
+            }
+            return ids;
+        } catch (NumberFormatException e) {
+            Log.w(TAG, "Discarding unreadable alert state", e);
+            return new long[0];
+        }
+    }
+
+    /**
+     * Builds the index from conditions already ordered by instrument and threshold.
+     */
+    private static Index compile(List<AlertConditionStore.Condition> conditions) {
+        int count = conditions.size();
+        int[] starts = new int[LiveQuote.INSTRUMENT_COUNT + 1];
+        double[] thresholds = new double[count];
+        long[] conditionIds = new long[count];
+        int[] instrument = new int[count];
+        int[] direction = new int[count];
+        for (int slot = 0; slot < count; slot++) {
+            AlertConditionStore.Condition condition = conditions.get(slot);
+            thresholds[slot] = condition.threshold;
+            conditionIds[slot] = condition.id;
+            instrument[slot] = condition.instrument;
+            direction[slot] = condition.direction;
+            starts[condition.instrument + 1]++;
+        }
+        for (int i = 0; i < LiveQuote.INSTRUMENT_COUNT; i++) {
+            starts[i + 1] += starts[i];
+        }
+        return new Index(starts, thresholds, conditionIds, instrument, direction);
+    }
+
+    static int parseDirection(String condition) {
+        if ("Below".equalsIgnoreCase(condition)) {
+            return DIRECTION_BELOW;
+        }
+        if ("Above".equalsIgnoreCase(condition)) {
+            return DIRECTION_ABOVE;
+        }
+        return DIRECTION_MATCH;
+    }
+
+    private void saveState(boolean disarmedChanged) {
+        SharedPreferences.Editor editor = statePrefs.edit();
+        for (int instrument = 0; instrument < LiveQuote.INSTRUMENT_COUNT; instrument++) {
+            editor.putLong(KEY_LAST_PRICE + instrument, Double.doubleToRawLongBits(lastPrice[instrument]));
+        }
+        if (disarmedChanged) {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < disarmedCount; i++) {
+                long id = index.conditionIds[disarmedIds[i]];
+                if (builder.length() > 0) {
+                    builder.append(',');
+                }
+                builder.append(id);
+            }
+            editor.putString(KEY_DISARMED, builder.toString());
+        }
+        editor.apply();
+    }
+
+    /**
+     * First slot in {@code [from, to)} whose threshold is not less than {@code value}.
+     */
+    private static int lowerBound(double[] sorted, int from, int to, double value) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * First slot in {@code [from, to)} whose threshold is greater than {@code value}.
+     */
+    private static int upperBound(double[] sorted, int from, int to, double value) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
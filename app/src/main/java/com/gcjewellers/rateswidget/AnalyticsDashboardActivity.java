@@ -47,7 +47,6 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
-import java.util.Random;
 
 /**
  * Provides comprehensive analytics and insights on gold and silver rates
@@ -66,17 +65,20 @@ public class AnalyticsDashboardActivity extends AppCompatActivity {
     private TextView insightsSummaryText;
     
     // Time period options
-    private static final int PERIOD_WEEK = 0;
-    private static final int PERIOD_MONTH = 1;
-    private static final int PERIOD_YEAR = 2;
+    private static final int PERIOD_WEEK = RatesAnalytics.PERIOD_WEEK;
+    private static final int PERIOD_MONTH = RatesAnalytics.PERIOD_MONTH;
+    private static final int PERIOD_YEAR = RatesAnalytics.PERIOD_YEAR;
     private int currentPeriod = PERIOD_MONTH;
     
     // Data type options (Gold or Silver)
-    private static final int DATA_GOLD = 0;
-    private static final int DATA_SILVER = 1;
-    private static final int DATA_BOTH = 2;
+    private static final int DATA_GOLD = RatesAnalytics.DATA_GOLD;
+    private static final int DATA_SILVER = RatesAnalytics.DATA_SILVER;
+    private static final int DATA_BOTH = RatesAnalytics.DATA_BOTH;
     private int currentDataType = DATA_BOTH;
     
+    // Trend charts with more points than this skip per-point circles
+    private static final int MAX_CIRCLE_POINTS = 60;
+    
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -97,8 +99,13 @@ public class AnalyticsDashboardActivity extends AppCompatActivity {
         setupTabLayoutListener();
         setupSpinnerListener();
         
-        // Load initial data
+        // Load initial data, then again if downloading missing history added any
         loadDashboardData();
+        RatesAnalytics.getInstance(this).syncHistory(() -> {
+            if (!isFinishing()) {
+                loadDashboardData();
+            }
+        });
     }
     
     private void initializeViews() {
@@ -242,30 +249,45 @@ public class AnalyticsDashboardActivity extends AppCompatActivity {
     }
     
     private void loadDashboardData() {
-        // Load data based on selected period and data type
-        updateTrendLineChart();
-        updateMonthlyComparisonChart();
-        updateMarketShareChart();
-        updateInsightsSummary();
+        // Load data based on selected period and data type; cached reports return immediately
+        RatesAnalytics.getInstance(this).request(currentPeriod, new RatesAnalytics.Callback() {
+            @Override
+            public void onReport(RatesAnalytics.Report report) {
+                if (isFinishing() || report.period != currentPeriod) {
+                    // A newer selection is pending
+                    return;
+                }
+                updateTrendLineChart(report);
+                updateMonthlyComparisonChart(report);
+                updateMarketShareChart();
+                updateInsightsSummary(report);
+            }
+
+            @Override
+            public void onError(String message) {
+                if (!isFinishing()) {
+                    insightsSummaryText.setText("Could not compute analytics: " + message);
+                }
+            }
+        });
     }
     
-    private void updateTrendLineChart() {
+    private void updateTrendLineChart(RatesAnalytics.Report report) {
         ArrayList<Entry> goldEntries = new ArrayList<>();
         ArrayList<Entry> silverEntries = new ArrayList<>();
         
-        // Generate sample data points based on selected period
-        int dataPoints = getDataPointsForPeriod();
-        Random random = new Random();
-        
-        // Baseline values for gold and silver
-        float goldBaseValue = 50000f;
-        float silverBaseValue = 70000f;
-        
-        for (int i = 0; i < dataPoints; i++) {
-            // Add some random variations to create realistic looking data
-            goldEntries.add(new Entry(i, goldBaseValue + random.nextFloat() * 5000 - 2500));
-            silverEntries.add(new Entry(i, silverBaseValue + random.nextFloat() * 10000 - 5000));
+        // Daily closes, x = day index within the period
+        for (int i = 0; i < report.trendTimestamps.length; i++) {
+            float gold = report.trend[RatesAnalytics.METAL_GOLD][i];
+            float silver = report.trend[RatesAnalytics.METAL_SILVER][i];
+            if (!Float.isNaN(gold)) {
+                goldEntries.add(new Entry(i, gold));
+            }
+            if (!Float.isNaN(silver)) {
+                silverEntries.add(new Entry(i, silver));
+            }
         }
+        boolean drawCircles = report.trendTimestamps.length <= MAX_CIRCLE_POINTS;
         
         ArrayList<ILineDataSet> dataSets = new ArrayList<>();
         
@@ -276,8 +298,10 @@ public class AnalyticsDashboardActivity extends AppCompatActivity {
             goldDataSet.setLineWidth(2f);
             goldDataSet.setCircleColor(Color.rgb(255, 215, 0));
             goldDataSet.setCircleRadius(3f);
+            goldDataSet.setDrawCircles(drawCircles);
             goldDataSet.setDrawCircleHole(false);
             goldDataSet.setValueTextSize(9f);
+            goldDataSet.setDrawValues(drawCircles);
             goldDataSet.setDrawFilled(true);
             goldDataSet.setFillColor(Color.rgb(255, 215, 0));
             goldDataSet.setFillAlpha(50);
@@ -290,8 +314,10 @@ public class AnalyticsDashboardActivity extends AppCompatActivity {
             silverDataSet.setLineWidth(2f);
             silverDataSet.setCircleColor(Color.rgb(192, 192, 192));
             silverDataSet.setCircleRadius(3f);
+            silverDataSet.setDrawCircles(drawCircles);
             silverDataSet.setDrawCircleHole(false);
             silverDataSet.setValueTextSize(9f);
+            silverDataSet.setDrawValues(drawCircles);
             silverDataSet.setDrawFilled(true);
             silverDataSet.setFillColor(Color.rgb(192, 192, 192));
             silverDataSet.setFillAlpha(50);
@@ -303,34 +329,32 @@ public class AnalyticsDashboardActivity extends AppCompatActivity {
         trendLineChart.setData(lineData);
         
         // Set X-axis labels based on period
-        setXAxisLabelsForPeriod(trendLineChart.getXAxis());
+        setXAxisLabelsForPeriod(trendLineChart.getXAxis(), report.trendTimestamps);
         
         // Refresh the chart
         trendLineChart.invalidate();
     }
     
-    private void updateMonthlyComparisonChart() {
+    private void updateMonthlyComparisonChart(RatesAnalytics.Report report) {
         ArrayList<BarEntry> entries = new ArrayList<>();
-        Random random = new Random();
         
-        // Generate sample data for each month or quarter depending on period
-        int groupCount = currentPeriod == PERIOD_YEAR ? 4 : 12; // quarters or months
+        // Monthly averages, or quarterly averages for the year view
+        int groupCount = report.groupLabels.length;
         
         for (int i = 0; i < groupCount; i++) {
-            // For simplicity, generate random data
+            float gold = report.groupAverages[RatesAnalytics.METAL_GOLD][i];
+            float silver = report.groupAverages[RatesAnalytics.METAL_SILVER][i];
             if (currentDataType == DATA_BOTH) {
                 // Grouped bars for both gold and silver
                 entries.add(new BarEntry(
                         i, new float[]{
-                        45000 + random.nextFloat() * 10000, // Gold
-                        65000 + random.nextFloat() * 10000  // Silver
+                        Float.isNaN(gold) ? 0f : gold,
+                        Float.isNaN(silver) ? 0f : silver
                 }));
             } else {
                 // Single bar for either gold or silver
-                float value = currentDataType == DATA_GOLD ?
-                        45000 + random.nextFloat() * 10000 :
-                        65000 + random.nextFloat() * 10000;
-                entries.add(new BarEntry(i, value));
+                float value = currentDataType == DATA_GOLD ? gold : silver;
+                entries.add(new BarEntry(i, Float.isNaN(value) ? 0f : value));
             }
         }
         
@@ -356,14 +380,7 @@ public class AnalyticsDashboardActivity extends AppCompatActivity {
         
         // Set X-axis labels based on period
         XAxis xAxis = monthlyComparisonChart.getXAxis();
-        if (currentPeriod == PERIOD_YEAR) {
-            xAxis.setValueFormatter(new IndexAxisValueFormatter(
-                    new String[]{"Q1", "Q2", "Q3", "Q4"}));
-        } else {
-            xAxis.setValueFormatter(new IndexAxisValueFormatter(
-                    new String[]{"Jan", "Feb", "Mar", "Apr", "May", "Jun",
-                            "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"}));
-        }
+        xAxis.setValueFormatter(new IndexAxisValueFormatter(report.groupLabels));
         xAxis.setLabelCount(groupCount);
         
         // Refresh the chart
@@ -397,8 +414,8 @@ public class AnalyticsDashboardActivity extends AppCompatActivity {
         marketShareChart.invalidate();
     }
     
-    private void updateInsightsSummary() {
-        // Generate some insight text based on the selected period and data type
+    private void updateInsightsSummary(RatesAnalytics.Report report) {
+        // Summarize the computed statistics for the selected period and data type
         StringBuilder insights = new StringBuilder();
         
         String periodName = "";
@@ -414,82 +431,76 @@ public class AnalyticsDashboardActivity extends AppCompatActivity {
                 break;
         }
         
-        String metalType = "";
-        switch (currentDataType) {
-            case DATA_GOLD:
-                metalType = "Gold";
-                insights.append("Gold prices have shown a steady increase over the past ")
-                       .append(periodName)
-                       .append(", with a 3.2% growth rate. Market analysts attribute this to ")
-                       .append("increased global economic uncertainty and higher demand in Asian markets.\n\n");
-                break;
-            case DATA_SILVER:
-                metalType = "Silver";
-                insights.append("Silver has experienced notable volatility this ")
-                       .append(periodName)
-                       .append(", with prices fluctuating between ₹68,000 and ₹72,000 per kg. ")
-                       .append("Industrial demand remains a key driver, with the electronics sector ")
-                       .append("showing increased consumption.\n\n");
-                break;
-            case DATA_BOTH:
-                metalType = "Precious metals";
-                insights.append("Both gold and silver have demonstrated positive trends this ")
-                       .append(periodName)
-                       .append(". Gold has increased by approximately 2.8%, while silver ")
-                       .append("has seen a more modest 1.5% growth. The gold-to-silver ratio ")
-                       .append("remains at historically high levels of around 70:1.\n\n");
-                break;
+        if (!report.hasData()) {
+            insightsSummaryText.setText("Not enough rate history stored for the past " + periodName
+                    + " yet. Insights will appear once rates have been downloaded.");
+            return;
+        }
+        
+        if (currentDataType == DATA_GOLD || currentDataType == DATA_BOTH) {
+            appendMetalInsights(insights, report, RatesAnalytics.METAL_GOLD, "Gold", "per 10g", periodName);
+        }
+        if (currentDataType == DATA_SILVER || currentDataType == DATA_BOTH) {
+            appendMetalInsights(insights, report, RatesAnalytics.METAL_SILVER, "Silver", "per kg", periodName);
         }
         
-        // Add predictive analysis
-        insights.append("Forecast: ")
-               .append(metalType)
-               .append(" prices are expected to rise by 1.5-2.5% in the coming weeks ")
-               .append("based on current market indicators and seasonal trends.");
+        if (!Double.isNaN(report.goldSilverRatio)) {
+            insights.append(String.format(Locale.getDefault(),
+                    "The gold-to-silver ratio stands at %.1f:1", report.goldSilverRatio));
+            if (!Double.isNaN(report.averageGoldSilverRatio)) {
+                insights.append(String.format(Locale.getDefault(),
+                        ", against a %s average of %.1f:1", periodName, report.averageGoldSilverRatio));
+            }
+            insights.append(".");
+        }
         
-        insightsSummaryText.setText(insights.toString());
+        insightsSummaryText.setText(insights.toString().trim());
     }
     
-    private int getDataPointsForPeriod() {
-        switch (currentPeriod) {
-            case PERIOD_WEEK:
-                return 7; // Daily data for a week
-            case PERIOD_MONTH:
-                return 30; // Daily data for a month
-            case PERIOD_YEAR:
-                return 12; // Monthly data for a year
-            default:
-                return 30;
+    private void appendMetalInsights(StringBuilder insights, RatesAnalytics.Report report, int metal,
+                                     String name, String unit, String periodName) {
+        double periodReturn = report.periodReturn[metal];
+        if (Double.isNaN(periodReturn)) {
+            insights.append(name).append(": no rates stored for this ").append(periodName).append(".\n\n");
+            return;
+        }
+        insights.append(String.format(Locale.getDefault(),
+                "%s %s %.2f%% over the past %s, closing between ₹%,.0f and ₹%,.0f %s.",
+                name, periodReturn >= 0 ? "rose" : "fell", Math.abs(periodReturn * 100), periodName,
+                report.periodLow[metal], report.periodHigh[metal], unit));
+        if (!Double.isNaN(report.volatility[metal])) {
+            insights.append(String.format(Locale.getDefault(),
+                    " Annualized volatility was %.1f%%", report.volatility[metal] * 100));
+            insights.append(String.format(Locale.getDefault(),
+                    " and the deepest drawdown %.1f%%.", report.maxDrawdown[metal] * 100));
         }
+        insights.append("\n\n");
     }
     
-    private void setXAxisLabelsForPeriod(XAxis xAxis) {
-        final String[] labels;
+    private void setXAxisLabelsForPeriod(XAxis xAxis, long[] timestamps) {
+        final SimpleDateFormat labelFormat;
         
         switch (currentPeriod) {
             case PERIOD_WEEK:
                 // Show day names for week view
-                labels = new String[]{"Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun"};
-                break;
-            case PERIOD_MONTH:
-                // Show dates for month view (just show every 5 days for clarity)
-                labels = new String[30];
-                for (int i = 0; i < 30; i++) {
-                    labels[i] = String.valueOf(i + 1);
-                }
+                labelFormat = new SimpleDateFormat("EEE", Locale.getDefault());
                 break;
             case PERIOD_YEAR:
                 // Show month names for year view
-                labels = new String[]{"Jan", "Feb", "Mar", "Apr", "May", "Jun",
-                        "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
+                labelFormat = new SimpleDateFormat("MMM", Locale.getDefault());
                 break;
             default:
-                labels = new String[]{};
+                // Show day of month for month view
+                labelFormat = new SimpleDateFormat("d", Locale.getDefault());
                 break;
         }
         
+        String[] labels = new String[timestamps.length];
+        for (int i = 0; i < timestamps.length; i++) {
+            labels[i] = labelFormat.format(new Date(timestamps[i]));
+        }
         xAxis.setValueFormatter(new IndexAxisValueFormatter(labels));
-        xAxis.setLabelCount(labels.length);
+        xAxis.setLabelCount(Math.min(labels.length, 7));
     }
     
     private List<MarketNewsItem> generateSampleNewsItems() {
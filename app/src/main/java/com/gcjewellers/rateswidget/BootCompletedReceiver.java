@@ -18,9 +18,9 @@ public class BootCompletedReceiver extends BroadcastReceiver {
         if (Intent.ACTION_BOOT_COMPLETED.equals(intent.getAction())) {
             // Check if auto-refresh is enabled
             RatesWidgetProvider widgetProvider = new RatesWidgetProvider();
-            if (widgetProvider.isAutoRefreshEnabled(context)) {
-                // Schedule widget update job
-                WidgetUpdateJobScheduler.scheduleJob(context);
+            if (widgetProvider.isAutoRefreshEnabled(context) || RatesBoardWidgetProvider.hasWidgets(context)) {
+                // WorkManager keeps periodic work across reboots; this only restores it if missing
+                RatesRefreshWorker.schedulePeriodic(context);
                 Log.d(TAG, "BootCompletedReceiver: scheduled widget updates after boot");
             }
         }
@@ -0,0 +1,241 @@
+package com.gcjewellers.rateswidget;
+
+import java.util.Arrays;
+
+/**
+ * Columnar rate history for a time window: one shared ascending timestamp column and a
+ * buy and sell column per instrument, with NaN where an instrument has no tick.
+ *
+ * Built once on a background thread by {@link RatesTickStore#loadHistory}, or from
+ * rollups by {@link RatesTickStore#loadRollups}, where each row is a bucket's close and
+ * its high and low are kept alongside; for raw ticks the high and low are the tick
+ * itself. Picking a series or side afterwards is a single pass over primitive arrays,
+ * and its statistics are already at hand.
+ */
+public final class HistorySeries {
+
+    /**
+     * Ticks of one instrument and side in ascending time order.
+     */
+    public static final class Series {
+        public final long[] timestamps;
+        public final float[] values;
+        // Highest and lowest rate behind each value; the value itself for raw ticks
+        public final float[] highs;
+        public final float[] lows;
+        public final int size;
+
+        Series(long[] timestamps, float[] values, float[] highs, float[] lows, int size) {
+            this.timestamps = timestamps;
+            this.values = values;
+            this.highs = highs;
+            this.lows = lows;
+            this.size = size;
+        }
+    }
+
+    private final long[] timestamps;
+    // Indexed [instrument][row]
+    private final float[][] buy;
+    private final float[][] sell;
+    // Indexed [instrument][0 = buy, 1 = sell][row]
+    private final float[][][] highs;
+    private final float[][][] lows;
+    // Indexed [instrument][0 = buy, 1 = sell]
+    private final RunningStats[][] stats;
+    private final double[][] highest;
+    private final double[][] lowest;
+
+    HistorySeries(long[] timestamps, float[][] buy, float[][] sell, float[][][] highs, float[][][] lows,
+                  RunningStats[][] stats, double[][] highest, double[][] lowest) {
+        this.timestamps = timestamps;
+        this.buy = buy;
+        this.sell = sell;
+        this.highs = highs;
+        this.lows = lows;
+        this.stats = stats;
+        this.highest = highest;
+        this.lowest = lowest;
+    }
+
+    public int size() {
+        return timestamps.length;
+    }
+
+    public long getTimestamp(int row) {
+        return timestamps[row];
+    }
+
+    public float getBuy(int instrument, int row) {
+        return buy[instrument][row];
+    }
+
+    public float getSell(int instrument, int row) {
+        return sell[instrument][row];
+    }
+
+    public float getHigh(int instrument, boolean isBuy, int row) {
+        return highs[instrument][isBuy ? 0 : 1][row];
+    }
+
+    public float getLow(int instrument, boolean isBuy, int row) {
+        return lows[instrument][isBuy ? 0 : 1][row];
+    }
+
+    /**
+     * Statistics of the values of one instrument and side over the whole window, gathered
+     * while the columns were built. Callers must not modify the returned accumulator.
+     */
+    public RunningStats getStats(int instrument, boolean isBuy) {
+        return stats[instrument][isBuy ? 0 : 1];
+    }
+
+    /**
+     * Highest rate of one instrument and side over the whole window, including highs
+     * inside rollup buckets; NaN if there is none.
+     */
+    public double getHighest(int instrument, boolean isBuy) {
+        return highest[instrument][isBuy ? 0 : 1];
+    }
+
+    /**
+     * Lowest rate of one instrument and side over the whole window, including lows
+     * inside rollup buckets; NaN if there is none.
+     */
+    public double getLowest(int instrument, boolean isBuy) {
+        return lowest[instrument][isBuy ? 0 : 1];
+    }
+
+    /**
+     * Copies out the rows where the instrument has a rate on the given side.
+     */
+    public Series select(int instrument, boolean isBuy) {
+        int side = isBuy ? 0 : 1;
+        float[] column = isBuy ? buy[instrument] : sell[instrument];
+        float[] highColumn = highs[instrument][side];
+        float[] lowColumn = lows[instrument][side];
+        long[] outTimestamps = new long[timestamps.length];
+        float[] outValues = new float[timestamps.length];
+        // Raw ticks share one column for value, high and low, and so does the selection
+        boolean raw = highColumn == column && lowColumn == column;
+        float[] outHighs = raw ? outValues : new float[timestamps.length];
+        float[] outLows = raw ? outValues : new float[timestamps.length];
+        int size = 0;
+        for (int row = 0; row < timestamps.length; row++) {
+            float value = column[row];
+            if (!Float.isNaN(value)) {
+                outTimestamps[size] = timestamps[row];
+                outValues[size] = value;
+                if (!raw) {
+                    outHighs[size] = highColumn[row];
+                    outLows[size] = lowColumn[row];
+                }
+                size++;
+            }
+        }
+        return new Series(outTimestamps, outValues, outHighs, outLows, size);
+    }
+
+    /**
+     * Aligns per-instrument tick arrays onto the union of their timestamps.
+     *
+     * @param instrumentTimestamps ascending timestamps for each instrument
+     * @param instrumentBuy buy rates parallel to {@code instrumentTimestamps}
+     * @param instrumentSell sell rates parallel to {@code instrumentTimestamps}
+     * @param counts number of valid entries for each instrument
+     */
+    static HistorySeries align(long[][] instrumentTimestamps, float[][] instrumentBuy,
+                               float[][] instrumentSell, int[] counts) {
+        return align(instrumentTimestamps, instrumentBuy, instrumentSell,
+                null, null, null, null, counts);
+    }
+
+    /**
+     * Aligns per-instrument bucket arrays onto the union of their timestamps, keeping each
+     * bucket's high and low next to its close. A null high or low array means the values
+     * are ticks and are their own high and low.
+     */
+    static HistorySeries align(long[][] instrumentTimestamps, float[][] instrumentBuy,
+                               float[][] instrumentSell, float[][] instrumentBuyHigh,
+                               float[][] instrumentBuyLow, float[][] instrumentSellHigh,
+                               float[][] instrumentSellLow, int[] counts) {
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        long[] all = new long[total];
+        int offset = 0;
+        for (int instrument = 0; instrument < counts.length; instrument++) {
+            System.arraycopy(instrumentTimestamps[instrument], 0, all, offset, counts[instrument]);
+            offset += counts[instrument];
+        }
+        Arrays.sort(all);
+
+        // Distinct timestamps
+        int size = 0;
+        for (int i = 0; i < all.length; i++) {
+            if (size == 0 || all[i] != all[size - 1]) {
+                all[size++] = all[i];
+            }
+        }
+        long[] timestamps = Arrays.copyOf(all, size);
+
+        float[][] buy = new float[counts.length][size];
+        float[][] sell = new float[counts.length][size];
+        float[][][] highs = new float[counts.length][2][];
+        float[][][] lows = new float[counts.length][2][];
+        RunningStats[][] stats = new RunningStats[counts.length][2];
+        double[][] highest = new double[counts.length][2];
+        double[][] lowest = new double[counts.length][2];
+        for (int instrument = 0; instrument < counts.length; instrument++) {
+            RunningStats buyStats = new RunningStats();
+            RunningStats sellStats = new RunningStats();
+            stats[instrument][0] = buyStats;
+            stats[instrument][1] = sellStats;
+            Arrays.fill(buy[instrument], Float.NaN);
+            Arrays.fill(sell[instrument], Float.NaN);
+            long[] source = instrumentTimestamps[instrument];
+            int[] rows = new int[counts[instrument]];
+            int row = 0;
+            for (int i = 0; i < counts[instrument]; i++) {
+                while (timestamps[row] != source[i]) {
+                    row++;
+                }
+                rows[i] = row;
+                buy[instrument][row] = instrumentBuy[instrument][i];
+                sell[instrument][row] = instrumentSell[instrument][i];
+                buyStats.add(instrumentBuy[instrument][i]);
+                sellStats.add(instrumentSell[instrument][i]);
+            }
+
+            highs[instrument][0] = alignExtremes(instrumentBuyHigh, instrument, rows, buy[instrument]);
+            lows[instrument][0] = alignExtremes(instrumentBuyLow, instrument, rows, buy[instrument]);
+            highs[instrument][1] = alignExtremes(instrumentSellHigh, instrument, rows, sell[instrument]);
+            lows[instrument][1] = alignExtremes(instrumentSellLow, instrument, rows, sell[instrument]);
+            for (int side = 0; side < 2; side++) {
+                RunningStats highStats = new RunningStats();
+                RunningStats lowStats = new RunningStats();
+                for (int r : rows) {
+                    highStats.add(highs[instrument][side][r]);
+                    lowStats.add(lows[instrument][side][r]);
+                }
+                highest[instrument][side] = highStats.getMax();
+                lowest[instrument][side] = lowStats.getMin();
+            }
+        }
+        return new HistorySeries(timestamps, buy, sell, highs, lows, stats, highest, lowest);
+    }
+
+    // Spreads one instrument's bucket highs or lows onto its aligned rows; ticks reuse their values
+    private static float[] alignExtremes(float[][] source, int instrument, int[] rows, float[] values) {
+        if (source == null) {
+            return values;
+        }
+        float[] aligned = new float[values.length];
+        Arrays.fill(aligned, Float.NaN);
+        for (int i = 0; i < rows.length; i++) {
+            aligned[rows[i]] = source[instrument][i];
+        }
+        return aligned;
+    }
+}
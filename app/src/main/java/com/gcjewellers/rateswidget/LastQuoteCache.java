@@ -0,0 +1,199 @@
+package com.gcjewellers.rateswidget;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The last live snapshot received, kept on disk so every screen and the widget can show
+ * real rates the moment they start, before the network answers.
+ *
+ * The file holds the fetch time and the 32 display strings in a small binary layout,
+ * replaced atomically on each new snapshot so a crash mid-write leaves the previous one
+ * intact. Rates are re-derived from the strings on read. A snapshot served from here
+ * has version {@link #CACHED_VERSION}, below any version the live client assigns, so a
+ * fresh result always replaces it.
+ */
+public final class LastQuoteCache {
+    private static final String TAG = "LastQuoteCache";
+    private static final String FILE_NAME = "last_quote.bin";
+
+    private static final int MAGIC = 0x4C515431; // "LQT1"
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Version carried by snapshots loaded from disk.
+     */
+    public static final long CACHED_VERSION = 0;
+
+    // Older than this, a snapshot is shown as stale: two missed widget refreshes
+    private static final long STALE_AFTER_MS = 30 * 60 * 1000;
+
+    public interface Callback {
+        /**
+         * Called on the main thread; {@code quote} is null when nothing is cached yet.
+         */
+        void onCached(LiveQuote quote);
+    }
+
+    private static volatile LastQuoteCache instance;
+
+    private final AtomicFile file;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "last-quote");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Latest snapshot read or written; saves a disk read after the first
+    private volatile LiveQuote latest;
+    private volatile boolean loaded;
+
+    private LastQuoteCache(Context context) {
+        file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+    }
+
+    public static LastQuoteCache getInstance(Context context) {
+        if (instance == null) {
+            synchronized (LastQuoteCache.class) {
+                if (instance == null) {
+                    instance = new LastQuoteCache(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the cached snapshot, reading the file on first use; null if there is none.
+     */
+    public LiveQuote read() {
+        if (loaded) {
+            return latest;
+        }
+        synchronized (this) {
+            if (!loaded) {
+                latest = readFile();
+                loaded = true;
+            }
+            return latest;
+        }
+    }
+
+    /**
+     * Whether the file has been read, so {@link #peek()} answers for it.
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * The cached snapshot if the file has been read already, else null. Never blocks.
+     */
+    public LiveQuote peek() {
+        return loaded ? latest : null;
+    }
+
+    /**
+     * Reads the file in the background so later {@link #peek()} calls find the snapshot.
+     */
+    public void preload() {
+        if (!loaded) {
+            executor.execute(this::read);
+        }
+    }
+
+    /**
+     * Reads the cached snapshot off the main thread and hands it to {@code callback} on
+     * the main thread, always in a later message, even when it is already in memory.
+     */
+    public void readAsync(Callback callback) {
+        if (loaded) {
+            LiveQuote quote = latest;
+            mainHandler.post(() -> callback.onCached(quote));
+            return;
+        }
+        executor.execute(() -> {
+            LiveQuote quote = read();
+            mainHandler.post(() -> callback.onCached(quote));
+        });
+    }
+
+    /**
+     * Replaces the cached snapshot. Blocking; call off the main thread.
+     */
+    public synchronized void save(LiveQuote quote) {
+        FileOutputStream out = null;
+        try {
+            out = file.startWrite();
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+            data.writeInt(MAGIC);
+            data.writeByte(FORMAT_VERSION);
+            data.writeLong(quote.getFetchedAt());
+            data.writeShort(LiveQuote.INSTRUMENT_COUNT * LiveQuote.FIELD_COUNT);
+            for (int instrument = 0; instrument < LiveQuote.INSTRUMENT_COUNT; instrument++) {
+                data.writeUTF(quote.getBuyText(instrument));
+                data.writeUTF(quote.getSellText(instrument));
+                data.writeUTF(quote.getHighText(instrument));
+                data.writeUTF(quote.getLowText(instrument));
+            }
+            data.flush();
+            file.finishWrite(out);
+            latest = quote;
+            loaded = true;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to save last quote", e);
+            if (out != null) {
+                file.failWrite(out);
+            }
+        }
+    }
+
+    private LiveQuote readFile() {
+        try (DataInputStream data = new DataInputStream(new BufferedInputStream(file.openRead()))) {
+            if (data.readInt() != MAGIC || data.readByte() != FORMAT_VERSION) {
+                Log.w(TAG, "Ignoring last quote in an unknown format");
+                return null;
+            }
+            long fetchedAt = data.readLong();
+            int count = data.readShort();
+            if (count != LiveQuote.INSTRUMENT_COUNT * LiveQuote.FIELD_COUNT) {
+                return null;
+            }
+            // Written in the same instrument-major, buy/sell/high/low order LiveQuote uses
+            double[] values = new double[count];
+            String[] texts = new String[count];
+            for (int slot = 0; slot < count; slot++) {
+                texts[slot] = data.readUTF();
+                values[slot] = LiveQuote.parseRate(texts[slot]);
+            }
+            return new LiveQuote(values, texts, fetchedAt, CACHED_VERSION);
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to read last quote", e);
+            return null;
+        }
+    }
+
+    /**
+     * Whether a snapshot is too old to present as current.
+     */
+    public static boolean isStale(LiveQuote quote) {
+        return System.currentTimeMillis() - quote.getFetchedAt() > STALE_AFTER_MS;
+    }
+}
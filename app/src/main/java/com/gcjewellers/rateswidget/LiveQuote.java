@@ -0,0 +1,113 @@
+package com.gcjewellers.rateswidget;
+
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of one /api/live response.
+ *
+ * Every instrument carries its buy, sell, high and low rates both as parsed doubles and
+ * as the display strings the server sent, so consumers never parse rate text themselves.
+ * Instrument indices follow the row order of the /api/rates history payload.
+ */
+public final class LiveQuote {
+    public static final int GOLD_DOLLAR = 0;
+    public static final int SILVER_DOLLAR = 1;
+    public static final int DOLLAR_INR = 2;
+    public static final int GOLD_FUTURE = 3;
+    public static final int SILVER_FUTURE = 4;
+    public static final int GOLD = 5;
+    public static final int GOLD_REFINE = 6;
+    public static final int GOLD_RTGS = 7;
+    public static final int INSTRUMENT_COUNT = 8;
+
+    // JSON keys, indexed by instrument
+    public static final String[] KEYS = {
+            "golddollar", "silverdollar", "dollarinr", "goldfuture",
+            "silverfuture", "gold", "goldrefine", "goldrtgs"
+    };
+
+    static final int BUY = 0;
+    static final int SELL = 1;
+    static final int HIGH = 2;
+    static final int LOW = 3;
+    static final int FIELD_COUNT = 4;
+
+    static final String[] FIELDS = {"buy", "sell", "high", "low"};
+
+    private final double[] values;
+    private final String[] texts;
+    private final long fetchedAt;
+    private final long version;
+
+    LiveQuote(double[] values, String[] texts, long fetchedAt, long version) {
+        this.values = values;
+        this.texts = texts;
+        this.fetchedAt = fetchedAt;
+        this.version = version;
+    }
+
+    /**
+     * Parses a display rate such as "1,09,800.00", returning NaN when it is not a number.
+     */
+    static double parseRate(String text) {
+        if (text == null) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(text.replace(",", "").trim());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    public double getBuy(int instrument) { return values[instrument * FIELD_COUNT + BUY]; }
+    public double getSell(int instrument) { return values[instrument * FIELD_COUNT + SELL]; }
+    public double getHigh(int instrument) { return values[instrument * FIELD_COUNT + HIGH]; }
+    public double getLow(int instrument) { return values[instrument * FIELD_COUNT + LOW]; }
+
+    public String getBuyText(int instrument) { return texts[instrument * FIELD_COUNT + BUY]; }
+    public String getSellText(int instrument) { return texts[instrument * FIELD_COUNT + SELL]; }
+    public String getHighText(int instrument) { return texts[instrument * FIELD_COUNT + HIGH]; }
+    public String getLowText(int instrument) { return texts[instrument * FIELD_COUNT + LOW]; }
+
+    /**
+     * Wall-clock time at which this snapshot was received.
+     */
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
+
+    /**
+     * Increases whenever the server content changes; an unchanged response yields the
+     * same snapshot with the same version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Whether both snapshots carry exactly the same rate strings, regardless of when they
+     * were fetched.
+     */
+    public boolean hasSameRates(LiveQuote other) {
+        return other != null && Arrays.equals(texts, other.texts);
+    }
+
+    /**
+     * Largest relative change in sell rate across instruments between two snapshots.
+     */
+    public static double maxRelativeMove(LiveQuote previous, LiveQuote current) {
+        if (previous == null || current == null) {
+            return 0;
+        }
+        double max = 0;
+        for (int instrument = 0; instrument < INSTRUMENT_COUNT; instrument++) {
+            double before = previous.getSell(instrument);
+            double after = current.getSell(instrument);
+            if (before > 0 && !Double.isNaN(after)) {
+                max = Math.max(max, Math.abs(after - before) / before);
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,145 @@
+package com.gcjewellers.rateswidget;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Single-pass streaming parser for the /api/live payload.
+ *
+ * Reads the eight instrument objects straight into the arrays backing a
+ * {@link LiveQuote}, skipping any other keys, without building a JSON tree.
+ */
+final class LiveQuoteParser {
+
+    private LiveQuoteParser() {}
+
+    static LiveQuote parse(InputStream in, long fetchedAt, long version) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        try {
+            return parse(reader, fetchedAt, version);
+        } finally {
+            reader.close();
+        }
+    }
+
+    static LiveQuote parse(JsonReader reader, long fetchedAt, long version) throws IOException {
+        double[] values = new double[LiveQuote.INSTRUMENT_COUNT * LiveQuote.FIELD_COUNT];
+        String[] texts = new String[LiveQuote.INSTRUMENT_COUNT * LiveQuote.FIELD_COUNT];
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int instrument = instrumentIndex(reader.nextName());
+            if (instrument < 0 || reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                int field = fieldIndex(reader.nextName());
+                JsonToken token = reader.peek();
+                if (field < 0 || (token != JsonToken.STRING && token != JsonToken.NUMBER)) {
+                    reader.skipValue();
+                    continue;
+                }
+                String text = reader.nextString();
+                int slot = instrument * LiveQuote.FIELD_COUNT + field;
+                texts[slot] = text;
+                values[slot] = parseRate(text);
+            }
+            reader.endObject();
+        }
+        reader.endObject();
+
+        for (int slot = 0; slot < texts.length; slot++) {
+            if (texts[slot] == null) {
+                throw new IOException("Missing " + LiveQuote.KEYS[slot / LiveQuote.FIELD_COUNT]
+                        + "." + LiveQuote.FIELDS[slot % LiveQuote.FIELD_COUNT]);
+            }
+        }
+        return new LiveQuote(values, texts, fetchedAt, version);
+    }
+
+    private static int instrumentIndex(String name) {
+        for (int i = 0; i < LiveQuote.INSTRUMENT_COUNT; i++) {
+            if (LiveQuote.KEYS[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int fieldIndex(String name) {
+        for (int i = 0; i < LiveQuote.FIELD_COUNT; i++) {
+            if (LiveQuote.FIELDS[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses a display rate such as "1,09,800.00" without intermediate strings,
+     * returning NaN for anything that is not a plain decimal number.
+     */
+    static double parseRate(String text) {
+        if (text == null) {
+            return Double.NaN;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length && text.charAt(i) == ' ') {
+            i++;
+        }
+        while (length > i && text.charAt(length - 1) == ' ') {
+            length--;
+        }
+
+        boolean negative = false;
+        if (i < length && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int decimals = 0;
+        int digits = 0;
+        boolean seenPoint = false;
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (digits == 15) {
+                    // Beyond exact double range for the fast path
+                    return LiveQuote.parseRate(text);
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (seenPoint) {
+                    decimals++;
+                }
+            } else if (c == ',' && !seenPoint) {
+                // Grouping separator
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (digits == 0) {
+            return Double.NaN;
+        }
+
+        double value = decimals == 0 ? mantissa : mantissa / POWERS_OF_TEN[decimals];
+        return negative ? -value : value;
+    }
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7,
+            1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+}
@@ -0,0 +1,320 @@
+package com.gcjewellers.rateswidget;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Process-wide client for the /api/live endpoint.
+ *
+ * Concurrent callers are coalesced: while a request is in flight every new caller
+ * joins it instead of opening another connection, and a result that is younger than
+ * {@link #COALESCE_WINDOW_MS} is handed out again without touching the network.
+ * The body is parsed into a {@link LiveQuote} once, on the worker thread, and that
+ * snapshot is shared by every caller. Requests are conditional (ETag/Last-Modified,
+ * falling back to a body hash); when nothing changed the previous snapshot is returned
+ * as-is, so callers can skip work by comparing {@link LiveQuote#getVersion()}.
+ * Requests go through the shared {@link RatesHttpClient}. Fetch callbacks run on the
+ * client's worker thread, except that a result reused from the coalesce window, or a
+ * fetch the worker could not queue, is answered on the caller's thread before
+ * {@link #fetch} returns; listeners must not assume either thread.
+ */
+public final class LiveRatesClient {
+    private static final String TAG = "LiveRatesClient";
+    static final String API_URL = "https://goldrate.divyanshbansal.com/api/live";
+
+    // Callers arriving this soon after a completed fetch share its result
+    private static final long COALESCE_WINDOW_MS = 1000;
+    private static final long CALL_TIMEOUT_SECONDS = 8;
+
+    /**
+     * Called on the worker thread or the caller's; hand off to the main thread to touch UI.
+     */
+    public interface Listener {
+        void onResult(LiveQuote quote);
+        void onFailure(Exception e);
+    }
+
+    /**
+     * Notified on the worker thread whenever a snapshot with a new version arrives,
+     * whether it was polled or pushed by {@link LiveRatesStream}.
+     */
+    public interface QuoteListener {
+        void onQuote(LiveQuote quote);
+    }
+
+    private static final LiveRatesClient instance = new LiveRatesClient();
+
+    private final ThreadPoolExecutor executor;
+    private final Object lock = new Object();
+
+    // Non-null while a request is in flight; every caller waiting on it
+    private List<Listener> waiters;
+    private LiveQuote lastResult;
+    private long lastResultAt;
+
+    // Validators for the current snapshot; only touched on the worker thread
+    private LiveQuote current;
+    private String etag;
+    private String lastModified;
+    private byte[] bodyHash;
+    private OkHttpClient httpClient;
+    private long publishedVersion = 0;
+
+    private final CopyOnWriteArrayList<QuoteListener> quoteListeners = new CopyOnWriteArrayList<>();
+    // Latest pushed body not yet applied; pushes arriving faster than we parse collapse into one
+    private final AtomicReference<byte[]> pendingPush = new AtomicReference<>();
+    // One instance, so a queued push can be taken back out to make room for a fetch
+    private final Runnable applyPushedTask = this::applyPushed;
+
+    private volatile Context appContext;
+
+    private LiveRatesClient() {
+        executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "live-rates");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the shared client. The context, when given, lets requests use the shared
+     * HTTP client's connection pool set up with the app's cache directory.
+     */
+    public static LiveRatesClient getInstance(Context context) {
+        if (context != null && instance.appContext == null) {
+            instance.appContext = context.getApplicationContext();
+        }
+        return instance;
+    }
+
+    public void addQuoteListener(QuoteListener listener) {
+        quoteListeners.addIfAbsent(listener);
+    }
+
+    public void removeQuoteListener(QuoteListener listener) {
+        quoteListeners.remove(listener);
+    }
+
+    /**
+     * Applies a /api/live payload received from the push stream as the current snapshot.
+     */
+    void acceptPushed(byte[] body) {
+        if (pendingPush.getAndSet(body) == null) {
+            try {
+                executor.execute(applyPushedTask);
+            } catch (RejectedExecutionException e) {
+                // The next push carries newer rates anyway
+                Log.w(TAG, "Worker busy, dropping pushed rates");
+                pendingPush.set(null);
+            }
+        }
+    }
+
+    private void applyPushed() {
+        byte[] body = pendingPush.getAndSet(null);
+        if (body == null) {
+            return;
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+            if (current != null && Arrays.equals(hash, bodyHash)) {
+                return;
+            }
+            current = LiveQuoteParser.parse(new ByteArrayInputStream(body),
+                    System.currentTimeMillis(), current != null ? current.getVersion() + 1 : 1);
+            bodyHash = hash;
+            // Validators describe the last polled body, not this one
+            etag = null;
+            lastModified = null;
+        } catch (Exception e) {
+            Log.e(TAG, "Dropping malformed pushed rates", e);
+            return;
+        }
+
+        synchronized (lock) {
+            lastResult = current;
+            lastResultAt = SystemClock.elapsedRealtime();
+        }
+        publish(current);
+    }
+
+    private void publish(LiveQuote quote) {
+        if (quote.getVersion() <= publishedVersion) {
+            return;
+        }
+        publishedVersion = quote.getVersion();
+        for (QuoteListener listener : quoteListeners) {
+            try {
+                listener.onQuote(quote);
+            } catch (Exception e) {
+                Log.e(TAG, "Quote listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * Requests the live rates, joining an in-flight request or reusing a fresh result
+     * where possible. A reused result is handed over directly rather than queued on the
+     * worker, whose bounded queue is kept for fetches and pushes.
+     */
+    public void fetch(Listener listener) {
+        LiveQuote cached = null;
+        List<Listener> rejected = null;
+        RejectedExecutionException rejection = null;
+        synchronized (lock) {
+            if (lastResult != null && SystemClock.elapsedRealtime() - lastResultAt < COALESCE_WINDOW_MS) {
+                cached = lastResult;
+            } else if (waiters != null) {
+                waiters.add(listener);
+                return;
+            } else {
+                waiters = new ArrayList<>();
+                waiters.add(listener);
+                try {
+                    startFetch();
+                } catch (RejectedExecutionException e) {
+                    // Nothing will answer these callers, so later ones must not join them
+                    rejected = waiters;
+                    rejection = e;
+                    waiters = null;
+                }
+            }
+        }
+        if (cached != null) {
+            listener.onResult(cached);
+        }
+        if (rejected != null) {
+            Log.e(TAG, "Live rates worker rejected the fetch", rejection);
+            for (Listener waiter : rejected) {
+                try {
+                    waiter.onFailure(rejection);
+                } catch (Exception e) {
+                    Log.e(TAG, "Listener failed", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Queues a fetch, giving up a queued push for it if the queue is full: the fetch
+     * brings newer rates than the push would.
+     */
+    private void startFetch() {
+        try {
+            executor.execute(this::runFetch);
+        } catch (RejectedExecutionException e) {
+            if (!executor.remove(applyPushedTask)) {
+                throw e;
+            }
+            pendingPush.set(null);
+            executor.execute(this::runFetch);
+        }
+    }
+
+    private void runFetch() {
+        LiveQuote result = null;
+        Exception failure = null;
+        try {
+            result = download();
+        } catch (Exception e) {
+            Log.e(TAG, "Error fetching live rates", e);
+            failure = e;
+        }
+
+        List<Listener> toNotify;
+        synchronized (lock) {
+            toNotify = waiters;
+            waiters = null;
+            if (result != null) {
+                lastResult = result;
+                lastResultAt = SystemClock.elapsedRealtime();
+            }
+        }
+
+        for (Listener listener : toNotify) {
+            try {
+                if (result != null) {
+                    listener.onResult(result);
+                } else {
+                    listener.onFailure(failure);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Listener failed", e);
+            }
+        }
+
+        if (result != null) {
+            publish(result);
+        }
+    }
+
+    private LiveQuote download() throws Exception {
+        if (httpClient == null) {
+            // Our own validators drive revalidation, so bypass the shared disk cache
+            httpClient = RatesHttpClient.get(appContext).newBuilder()
+                    .cache(null)
+                    .callTimeout(CALL_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .build();
+        }
+
+        Request.Builder request = new Request.Builder().url(API_URL).get();
+
+        // Revalidate the snapshot we already hold instead of downloading it again
+        if (current != null) {
+            if (etag != null) {
+                request.header("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                request.header("If-Modified-Since", lastModified);
+            }
+        }
+
+        try (Response response = httpClient.newCall(request.build()).execute()) {
+            if (response.code() == HttpURLConnection.HTTP_NOT_MODIFIED && current != null) {
+                Log.d(TAG, "Live rates not modified");
+                return current;
+            }
+            if (!response.isSuccessful() || response.body() == null) {
+                throw new IOException("Server error: " + response.code());
+            }
+
+            byte[] body = response.body().bytes();
+
+            // Servers without validators still let us skip parsing identical bodies
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+            if (current != null && Arrays.equals(hash, bodyHash)) {
+                return current;
+            }
+
+            LiveQuote quote = LiveQuoteParser.parse(new ByteArrayInputStream(body),
+                    System.currentTimeMillis(), current != null ? current.getVersion() + 1 : 1);
+            current = quote;
+            bodyHash = hash;
+            etag = response.header("ETag");
+            lastModified = response.header("Last-Modified");
+            return quote;
+        }
+    }
+}
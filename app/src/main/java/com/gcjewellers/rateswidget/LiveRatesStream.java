@@ -0,0 +1,212 @@
+package com.gcjewellers.rateswidget;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.BufferedSource;
+
+/**
+ * Server-sent events subscription to live rate ticks.
+ *
+ * Each event's data is a /api/live payload and is handed to {@link LiveRatesClient},
+ * which versions it and fans it out to every {@link LiveRatesClient.QuoteListener}.
+ * The stream runs only while at least one {@link StateListener} is registered and
+ * reconnects with backoff; listeners are told when it goes up or down so they can
+ * fall back to polling in between.
+ */
+public final class LiveRatesStream {
+    private static final String TAG = "LiveRatesStream";
+    private static final String STREAM_URL = "https://goldrate.divyanshbansal.com/api/live/stream";
+
+    // The server sends a heartbeat comment well within this
+    private static final long IDLE_TIMEOUT_SECONDS = 45;
+    private static final long MIN_RETRY_MS = 5000;
+    private static final long MAX_RETRY_MS = 5 * 60000;
+
+    /**
+     * Called on the main thread.
+     */
+    public interface StateListener {
+        void onStreamConnected();
+        void onStreamLost();
+    }
+
+    private static final LiveRatesStream instance = new LiveRatesStream();
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final CopyOnWriteArrayList<StateListener> stateListeners = new CopyOnWriteArrayList<>();
+
+    private Context appContext;
+    private Thread thread;
+    // Connection of the current loop thread; guarded by this
+    private Call call;
+    private volatile boolean connected = false;
+
+    private LiveRatesStream() {}
+
+    public static LiveRatesStream getInstance(Context context) {
+        synchronized (instance) {
+            if (instance.appContext == null && context != null) {
+                instance.appContext = context.getApplicationContext();
+            }
+        }
+        return instance;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public synchronized void addStateListener(StateListener listener) {
+        if (!stateListeners.addIfAbsent(listener)) {
+            return;
+        }
+        if (connected) {
+            mainHandler.post(listener::onStreamConnected);
+        }
+        if (thread == null) {
+            thread = new Thread(this::runLoop, "live-rates-stream");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    public synchronized void removeStateListener(StateListener listener) {
+        stateListeners.remove(listener);
+        if (stateListeners.isEmpty() && thread != null) {
+            thread.interrupt();
+            thread = null;
+            connected = false;
+            if (call != null) {
+                call.cancel();
+                call = null;
+            }
+        }
+    }
+
+    private synchronized boolean isCurrentThread() {
+        return thread == Thread.currentThread();
+    }
+
+    /**
+     * Makes {@code active} the call a stop cancels, unless this loop was already stopped.
+     */
+    private synchronized boolean claimCall(Call active) {
+        if (!isCurrentThread()) {
+            return false;
+        }
+        call = active;
+        return true;
+    }
+
+    private synchronized void releaseCall(Call active) {
+        // A newer loop may have claimed the field since
+        if (call == active) {
+            call = null;
+        }
+    }
+
+    private void runLoop() {
+        OkHttpClient client = RatesHttpClient.get(appContext).newBuilder()
+                .cache(null)
+                .readTimeout(IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .callTimeout(0, TimeUnit.SECONDS)
+                .build();
+        long retryMs = MIN_RETRY_MS;
+
+        while (isCurrentThread()) {
+            try {
+                consume(client);
+            } catch (IOException e) {
+                Log.d(TAG, "Stream unavailable: " + e.getMessage());
+            }
+            if (connected) {
+                // Reached the server, so reconnect quickly after a drop
+                retryMs = MIN_RETRY_MS;
+            }
+            setConnected(false);
+
+            try {
+                Thread.sleep(retryMs);
+            } catch (InterruptedException e) {
+                break;
+            }
+            retryMs = Math.min(MAX_RETRY_MS, retryMs * 2);
+        }
+        Log.d(TAG, "Stream stopped");
+    }
+
+    /**
+     * Reads events until the connection ends or the stream is stopped.
+     */
+    private void consume(OkHttpClient client) throws IOException {
+        Request request = new Request.Builder()
+                .url(STREAM_URL)
+                .header("Accept", "text/event-stream")
+                .get()
+                .build();
+        Call active = client.newCall(request);
+        if (!claimCall(active)) {
+            return;
+        }
+        try (Response response = active.execute()) {
+            String contentType = response.header("Content-Type", "");
+            if (!response.isSuccessful() || response.body() == null
+                    || !contentType.startsWith("text/event-stream")) {
+                throw new IOException("Server error: " + response.code());
+            }
+            setConnected(true);
+
+            BufferedSource source = response.body().source();
+            StringBuilder data = new StringBuilder();
+            String line;
+            while (isCurrentThread() && (line = source.readUtf8Line()) != null) {
+                if (line.isEmpty()) {
+                    // Blank line terminates the event
+                    if (data.length() > 0) {
+                        LiveRatesClient.getInstance(appContext)
+                                .acceptPushed(data.toString().getBytes(StandardCharsets.UTF_8));
+                        data.setLength(0);
+                    }
+                } else if (line.startsWith("data:")) {
+                    if (data.length() > 0) {
+                        data.append('\n');
+                    }
+                    data.append(line.startsWith("data: ") ? line.substring(6) : line.substring(5));
+                }
+                // Comments (":") are heartbeats; event/id/retry fields are not used
+            }
+        } finally {
+            releaseCall(active);
+        }
+    }
+
+    private void setConnected(boolean value) {
+        // A stopped loop must not report state over a newer one
+        if (connected == value || !isCurrentThread()) {
+            return;
+        }
+        connected = value;
+        Log.d(TAG, value ? "Stream connected" : "Stream lost");
+        mainHandler.post(() -> {
+            for (StateListener listener : stateListeners) {
+                if (value) {
+                    listener.onStreamConnected();
+                } else {
+                    listener.onStreamLost();
+                }
+            }
+        });
+    }
+}
@@ -1,10 +1,7 @@
 package com.gcjewellers.rateswidget;
 
-import android.appwidget.AppWidgetManager;
-import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.content.res.Configuration;
 import android.graphics.Bitmap;
 import android.graphics.Color;
@@ -13,7 +10,6 @@ import android.graphics.drawable.Drawable;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
-import android.os.Looper;
 import android.provider.Settings;
 import android.util.Log;
 import android.view.View;
@@ -52,10 +48,9 @@ public class MainActivity extends AppCompatActivity {
     private TextView userEmail;
     private ImageView userProfileImage;
 
-    private android.os.Handler autoRefreshHandler;
-    private static final long AUTO_REFRESH_INTERVAL = 2000;
+    private AdaptivePollScheduler pollScheduler;
     private boolean isAutoRefreshEnabled = true;
-    private Runnable autoRefreshRunnable;
+    private boolean isStreaming = false;
 
     // Gold UI elements
     private TextView goldDate;
@@ -114,6 +109,12 @@ public class MainActivity extends AppCompatActivity {
     private TextView dollarHigh;
     private TextView dollarLow;
 
+    // Buy/Sell views, indexed by LiveQuote instrument
+    private final TextView[] buyRateViews = new TextView[LiveQuote.INSTRUMENT_COUNT];
+    private final TextView[] sellRateViews = new TextView[LiveQuote.INSTRUMENT_COUNT];
+    private long renderedQuoteVersion = -1;
+    private LiveQuote renderedQuote;
+
     private boolean isDrawerAnimating = false;
 
     @Override
@@ -129,23 +130,11 @@ public class MainActivity extends AppCompatActivity {
             // Initialize the rates repository
             ratesRepository = new RatesRepository(this);
 
-            // Initialize auto refresh handler
-            autoRefreshHandler = new android.os.Handler(Looper.getMainLooper());
-            autoRefreshRunnable = new Runnable() {
-                @Override
-                public void run() {
-                    if (!isFinishing() && isAutoRefreshEnabled) {
-                        refreshRates();
-                        autoRefreshHandler.postDelayed(this, AUTO_REFRESH_INTERVAL);
-                    }
-                }
-            };
-
-            // Load rates data
-            refreshRates();
+            // Last known rates fill the screen while the first poll is in flight
+            showCachedQuote();
 
-            // Start auto refresh
-            startAutoRefresh();
+            // Adaptive polling; the first poll runs as soon as it starts in onResume
+            pollScheduler = new AdaptivePollScheduler(this::pollRates);
 
             // Setup refresh fab
             if (fabRefresh != null) {
@@ -163,23 +152,48 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void startAutoRefresh() {
-        if (autoRefreshHandler != null && autoRefreshRunnable != null) {
-            // Remove any existing callbacks to avoid duplicate refreshes
-            stopAutoRefresh();
-
-            // Start periodic refresh if enabled
-            if (isAutoRefreshEnabled) {
-                autoRefreshHandler.postDelayed(autoRefreshRunnable, AUTO_REFRESH_INTERVAL);
+        // Start live updates if enabled: the push stream when available, polling otherwise
+        if (pollScheduler != null && isAutoRefreshEnabled) {
+            LiveRatesStream.getInstance(this).addStateListener(streamStateListener);
+            if (!isStreaming) {
+                pollScheduler.start();
             }
         }
     }
 
     private void stopAutoRefresh() {
-        if (autoRefreshHandler != null && autoRefreshRunnable != null) {
-            autoRefreshHandler.removeCallbacks(autoRefreshRunnable);
+        LiveRatesStream.getInstance(this).removeStateListener(streamStateListener);
+        RatesSnapshotBus.getInstance(this).unsubscribe(pushedQuoteListener);
+        isStreaming = false;
+        if (pollScheduler != null) {
+            pollScheduler.stop();
         }
     }
 
+    private final RatesSnapshotBus.Subscriber pushedQuoteListener =
+            quote -> runOnUiThread(() -> renderQuote(quote));
+
+    private final LiveRatesStream.StateListener streamStateListener = new LiveRatesStream.StateListener() {
+        @Override
+        public void onStreamConnected() {
+            // Ticks are pushed to us now; polling would only duplicate them
+            isStreaming = true;
+            RatesSnapshotBus.getInstance(MainActivity.this).subscribe(pushedQuoteListener);
+            if (pollScheduler != null) {
+                pollScheduler.stop();
+            }
+        }
+
+        @Override
+        public void onStreamLost() {
+            isStreaming = false;
+            RatesSnapshotBus.getInstance(MainActivity.this).unsubscribe(pushedQuoteListener);
+            if (pollScheduler != null && isAutoRefreshEnabled) {
+                pollScheduler.start();
+            }
+        }
+    };
+
     public void toggleAutoRefresh(boolean enabled) {
         isAutoRefreshEnabled = enabled;
         if (isAutoRefreshEnabled) {
@@ -192,8 +206,6 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onResume() {
         super.onResume();
-        refreshRates();
-
         isAutoRefreshEnabled = true;
         startAutoRefresh();
     }
@@ -314,6 +326,23 @@ public class MainActivity extends AppCompatActivity {
             dollarHigh = findViewById(R.id.dollar_high);
             dollarLow = findViewById(R.id.dollar_low);
 
+            buyRateViews[LiveQuote.GOLD] = gold995Buy;
+            sellRateViews[LiveQuote.GOLD] = gold995Sell;
+            buyRateViews[LiveQuote.SILVER_FUTURE] = silverFutureBuy;
+            sellRateViews[LiveQuote.SILVER_FUTURE] = silverFutureSell;
+            buyRateViews[LiveQuote.GOLD_FUTURE] = goldFuturesBuy;
+            sellRateViews[LiveQuote.GOLD_FUTURE] = goldFuturesSell;
+            buyRateViews[LiveQuote.GOLD_REFINE] = goldRefineBuy;
+            sellRateViews[LiveQuote.GOLD_REFINE] = goldRefineSell;
+            buyRateViews[LiveQuote.GOLD_RTGS] = goldRtgsBuy;
+            sellRateViews[LiveQuote.GOLD_RTGS] = goldRtgsSell;
+            buyRateViews[LiveQuote.GOLD_DOLLAR] = goldDollarBuy;
+            sellRateViews[LiveQuote.GOLD_DOLLAR] = goldDollarSell;
+            buyRateViews[LiveQuote.SILVER_DOLLAR] = silverDollarBuy;
+            sellRateViews[LiveQuote.SILVER_DOLLAR] = silverDollarSell;
+            buyRateViews[LiveQuote.DOLLAR_INR] = dollarBuy;
+            sellRateViews[LiveQuote.DOLLAR_INR] = dollarSell;
+
             // Set current date
             SimpleDateFormat dateFormat = new SimpleDateFormat("MMM dd, yyyy", Locale.getDefault());
             String currentDate = dateFormat.format(new Date());
@@ -344,6 +373,13 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void refreshRates() {
+        // Manual refreshes share the scheduler so only one request is ever outstanding
+        if (pollScheduler != null) {
+            pollScheduler.pollNow();
+        }
+    }
+
+    private void pollRates(AdaptivePollScheduler.Completion completion) {
         // Show loading indicator if available
         if (loadingIndicator != null) {
             loadingIndicator.setVisibility(View.VISIBLE);
@@ -353,100 +389,109 @@ public class MainActivity extends AppCompatActivity {
         if (ratesRepository != null) {
             ratesRepository.fetchExtendedRates(new RatesRepository.ExtendedRatesFetchCallback() {
                 @Override
-                public void onSuccess(
-                        String gold995Buy, String gold995Sell, String gold995High, String gold995Low,
-                        String silverFutureBuy, String silverFutureSell, String silverFutureHigh,
-                        String silverFutureLow,
-                        String goldFuturesBuy, String goldFuturesSell, String goldFuturesHigh, String goldFuturesLow,
-                        String goldRefineBuy, String goldRefineSell, String goldRefineHigh, String goldRefineLow,
-                        String goldRtgsBuy, String goldRtgsSell, String goldRtgsHigh, String goldRtgsLow,
-                        String goldDollarBuy, String goldDollarSell, String goldDollarHigh, String goldDollarLow,
-                        String silverDollarBuy, String silverDollarSell, String silverDollarHigh,
-                        String silverDollarLow,
-                        String dollarBuy, String dollarSell, String dollarHigh, String dollarLow) {
-
-                    runOnUiThread(() -> {
-                        // Update main rates UI
-                        updateMainRatesUI(
-                                gold995Sell, silverFutureSell,
-                                calculateChangeValue(gold995Sell, gold995Low),
-                                calculateChangeValue(silverFutureSell, silverFutureLow));
-
-                        // Update all extended rates UI
-                        updateExtendedRatesUI(
-                                gold995Buy, gold995Sell, gold995High, gold995Low,
-                                silverFutureBuy, silverFutureSell, silverFutureHigh, silverFutureLow,
-                                goldFuturesBuy, goldFuturesSell, goldFuturesHigh, goldFuturesLow,
-                                goldRefineBuy, goldRefineSell, goldRefineHigh, goldRefineLow,
-                                goldRtgsBuy, goldRtgsSell, goldRtgsHigh, goldRtgsLow,
-                                goldDollarBuy, goldDollarSell, goldDollarHigh, goldDollarLow,
-                                silverDollarBuy, silverDollarSell, silverDollarHigh, silverDollarLow,
-                                dollarBuy, dollarSell, dollarHigh, dollarLow);
-
-                        // Hide loading indicator
-                        if (loadingIndicator != null) {
-                            loadingIndicator.setVisibility(View.GONE);
-                        }
-
-                        // Update widgets with the data
-                        // Update widgets with the data
-
-                        updateWidgetsWithExtendedData(
-                                gold995Sell,
-                                silverFutureSell,
-                                new SimpleDateFormat("hh:mm a", Locale.getDefault()).format(new Date()),
-                                gold995Low,
-                                silverFutureLow,
-                                calculateChangeValue(gold995Sell, gold995Low),
-                                calculateChangeValue(silverFutureSell, silverFutureLow),
-                                goldFuturesSell,
-                                silverFutureSell,
-                                goldDollarSell,
-                                silverDollarSell,
-                                dollarSell);
+                public void onSuccess(LiveQuote quote) {
+                    double move = LiveQuote.maxRelativeMove(renderedQuote, quote);
+                    if (renderQuote(quote)) {
+                        completion.onChanged(move);
+                    } else {
+                        completion.onUnchanged();
                     }
 
-                    );
+                    // Hide loading indicator
+                    if (loadingIndicator != null) {
+                        loadingIndicator.setVisibility(View.GONE);
+                    }
                 }
 
                 @Override
                 public void onError(String errorMessage) {
-                    runOnUiThread(() -> {
-                        // Hide loading indicator
-                        if (loadingIndicator != null) {
-                            loadingIndicator.setVisibility(View.GONE);
-                        }
-
-                        // Show error Snackbar
-                        if (findViewById(R.id.drawer_layout) != null) {
-                            Snackbar.make(
-                                    findViewById(R.id.drawer_layout),
-                                    "Error: " + errorMessage,
-                                    Snackbar.LENGTH_LONG)
-                                    .setAction("Retry", v -> refreshRates())
-                                    .show();
-                        }
-                    });
+                    completion.onFailed();
+
+                    // Hide loading indicator
+                    if (loadingIndicator != null) {
+                        loadingIndicator.setVisibility(View.GONE);
+                    }
+
+                    // Show error Snackbar
+                    if (findViewById(R.id.drawer_layout) != null) {
+                        Snackbar.make(
+                                findViewById(R.id.drawer_layout),
+                                "Error: " + errorMessage,
+                                Snackbar.LENGTH_LONG)
+                                .setAction("Retry", v -> refreshRates())
+                                .show();
+                    }
                 }
             });
+        } else {
+            completion.onFailed();
         }
     }
 
+    /**
+     * Binds a snapshot to the screen. Returns false, doing nothing, when the snapshot is
+     * the one already shown. Widgets get the same snapshot from the snapshot bus.
+     */
+    private boolean renderQuote(LiveQuote quote) {
+        // Nothing changed on the server: skip rebinding
+        if (quote.getVersion() == renderedQuoteVersion) {
+            return false;
+        }
+        bindQuote(quote);
+        return true;
+    }
+
+    /**
+     * Shows a snapshot on screen without touching the widgets.
+     */
+    private void bindQuote(LiveQuote quote) {
+        renderedQuoteVersion = quote.getVersion();
+        renderedQuote = quote;
+
+        long goldChange = calculateChangeValue(
+                quote.getSell(LiveQuote.GOLD), quote.getLow(LiveQuote.GOLD));
+        long silverChange = calculateChangeValue(
+                quote.getSell(LiveQuote.SILVER_FUTURE), quote.getLow(LiveQuote.SILVER_FUTURE));
+
+        // Update main rates UI
+        updateMainRatesUI(
+                quote.getSellText(LiveQuote.GOLD), quote.getSellText(LiveQuote.SILVER_FUTURE),
+                goldChange, silverChange);
+
+        // Update all extended rates UI
+        updateExtendedRatesUI(quote);
+    }
+
+    /**
+     * Shows the last snapshot saved on disk until the first live result arrives.
+     */
+    private void showCachedQuote() {
+        LastQuoteCache.getInstance(this).readAsync(quote -> {
+            if (quote == null || renderedQuote != null || isFinishing()) {
+                return;
+            }
+            bindQuote(quote);
+            if (LastQuoteCache.isStale(quote) && findViewById(R.id.drawer_layout) != null) {
+                Snackbar.make(findViewById(R.id.drawer_layout),
+                        "Showing rates from " + new SimpleDateFormat("dd MMM, hh:mm a", Locale.getDefault())
+                                .format(new Date(quote.getFetchedAt())),
+                        Snackbar.LENGTH_SHORT).show();
+            }
+        });
+    }
+
     // Helper method to calculate change value
-    private String calculateChangeValue(String currentRate, String previousRate) {
-        try {
-            float current = Float.parseFloat(currentRate.replace(",", ""));
-            float previous = Float.parseFloat(previousRate.replace(",", ""));
-            return String.valueOf(Math.round(current - previous));
-        } catch (NumberFormatException e) {
-            Log.e(TAG, "Error calculating change value", e);
-            return "0";
+    private long calculateChangeValue(double current, double previous) {
+        if (Double.isNaN(current) || Double.isNaN(previous)) {
+            Log.e(TAG, "Error calculating change value");
+            return 0;
         }
+        return Math.round(current - previous);
     }
 
     // Method to update the main rates UI (gold and silver primary displays)
     private void updateMainRatesUI(String goldRateValue, String silverRateValue,
-            String goldChangeValue, String silverChangeValue) {
+            long goldChange, long silverChange) {
         // Set gold values
         if (goldRate != null) {
             goldRate.setText("₹" + goldRateValue);
@@ -463,171 +508,65 @@ public class MainActivity extends AppCompatActivity {
             silverYesterdayPrice.setText("₹" + silverRateValue);
         }
 
-        // Set price changes with proper sign and color
-        try {
-            int goldChange = Integer.parseInt(goldChangeValue);
-            int silverChange = Integer.parseInt(silverChangeValue);
-
-            // Format gold change with sign
-            String formattedGoldChange = (goldChange >= 0 ? "+" : "") + goldChange;
-            if (goldPriceChange != null) {
-                goldPriceChange.setText(formattedGoldChange);
-                goldPriceChange.setTextColor(ContextCompat.getColor(this,
-                        goldChange >= 0 ? R.color.price_up : R.color.price_down));
-                goldPriceChange.setCompoundDrawablesWithIntrinsicBounds(
-                        goldChange >= 0 ? R.drawable.ic_arrow_up : R.drawable.ic_arrow_down,
-                        0, 0, 0);
-            }
-
-            // Format silver change with sign
-            String formattedSilverChange = (silverChange >= 0 ? "+" : "") + silverChange;
-            if (silverPriceChange != null) {
-                silverPriceChange.setText(formattedSilverChange);
-                silverPriceChange.setTextColor(ContextCompat.getColor(this,
-                        silverChange >= 0 ? R.color.price_up : R.color.price_down));
-                silverPriceChange.setCompoundDrawablesWithIntrinsicBounds(
-                        silverChange >= 0 ? R.drawable.ic_arrow_up : R.drawable.ic_arrow_down,
-                        0, 0, 0);
-            }
-        } catch (NumberFormatException e) {
-            Log.e(TAG, "Error formatting price changes", e);
-
-            // Default values if parsing fails
-            if (goldPriceChange != null) {
-                goldPriceChange.setText("+0");
-                goldPriceChange.setTextColor(ContextCompat.getColor(this, R.color.price_unchanged));
-                goldPriceChange.setCompoundDrawablesWithIntrinsicBounds(R.drawable.ic_arrow_up, 0, 0, 0);
-            }
+        // Format gold change with sign
+        String formattedGoldChange = (goldChange >= 0 ? "+" : "") + goldChange;
+        if (goldPriceChange != null) {
+            goldPriceChange.setText(formattedGoldChange);
+            goldPriceChange.setTextColor(ContextCompat.getColor(this,
+                    goldChange >= 0 ? R.color.price_up : R.color.price_down));
+            goldPriceChange.setCompoundDrawablesWithIntrinsicBounds(
+                    goldChange >= 0 ? R.drawable.ic_arrow_up : R.drawable.ic_arrow_down,
+                    0, 0, 0);
+        }
 
-            if (silverPriceChange != null) {
-                silverPriceChange.setText("+0");
-                silverPriceChange.setTextColor(ContextCompat.getColor(this, R.color.price_unchanged));
-                silverPriceChange.setCompoundDrawablesWithIntrinsicBounds(R.drawable.ic_arrow_up, 0, 0, 0);
-            }
+        // Format silver change with sign
+        String formattedSilverChange = (silverChange >= 0 ? "+" : "") + silverChange;
+        if (silverPriceChange != null) {
+            silverPriceChange.setText(formattedSilverChange);
+            silverPriceChange.setTextColor(ContextCompat.getColor(this,
+                    silverChange >= 0 ? R.color.price_up : R.color.price_down));
+            silverPriceChange.setCompoundDrawablesWithIntrinsicBounds(
+                    silverChange >= 0 ? R.drawable.ic_arrow_up : R.drawable.ic_arrow_down,
+                    0, 0, 0);
         }
     }
 
     // New method to update all extended rates UI
-    private void setRateStyle(TextView textView, String currentRate, String previousRate) {
+    private void setRateStyle(TextView textView, String currentText, int changeType) {
         if (textView == null)
             return;
 
-        try {
-            // Parse rates, removing any commas
-            double current = Double.parseDouble(currentRate.replace(",", ""));
-            double previous = Double.parseDouble(previousRate.replace(",", ""));
-
-            // Calculate change
-            double change = current - previous;
-
-            // Set base text
-            textView.setText(currentRate);
-
-            // Apply styling based on change
-            if (change > 0) {
-                // Rate increased - red color, up arrow
-                textView.setTextColor(ContextCompat.getColor(this, R.color.price_up_red));
-                textView.setCompoundDrawablesWithIntrinsicBounds(0, 0, R.drawable.ic_arrow_up, 0);
-            } else if (change < 0) {
-                // Rate decreased - green color, down arrow
-                textView.setTextColor(ContextCompat.getColor(this, R.color.price_down_green));
-                textView.setCompoundDrawablesWithIntrinsicBounds(0, 0, R.drawable.ic_arrow_down, 0);
-            } else {
-                // No change - default color, no arrow
-                textView.setTextColor(ContextCompat.getColor(this, R.color.price_unchanged));
-                textView.setCompoundDrawablesWithIntrinsicBounds(0, 0, 0, 0);
-            }
-        } catch (NumberFormatException e) {
-            Log.e(TAG, "Error parsing rate: " + currentRate, e);
-            // Default styling if parsing fails
+        // Set base text
+        textView.setText(currentText);
+
+        // Apply styling based on change
+        if (changeType == RateTracker.CHANGE_UP) {
+            // Rate increased - red color, up arrow
+            textView.setTextColor(ContextCompat.getColor(this, R.color.price_up_red));
+            textView.setCompoundDrawablesWithIntrinsicBounds(0, 0, R.drawable.ic_arrow_up, 0);
+        } else if (changeType == RateTracker.CHANGE_DOWN) {
+            // Rate decreased - green color, down arrow
+            textView.setTextColor(ContextCompat.getColor(this, R.color.price_down_green));
+            textView.setCompoundDrawablesWithIntrinsicBounds(0, 0, R.drawable.ic_arrow_down, 0);
+        } else {
+            // No change - default color, no arrow
             textView.setTextColor(ContextCompat.getColor(this, R.color.price_unchanged));
             textView.setCompoundDrawablesWithIntrinsicBounds(0, 0, 0, 0);
         }
     }
 
-    private void updateExtendedRatesUI(
-            String gold995Buy, String gold995Sell, String gold995High, String gold995Low,
-            String silverFutureBuy, String silverFutureSell, String silverFutureHigh, String silverFutureLow,
-            String goldFuturesBuy, String goldFuturesSell, String goldFuturesHigh, String goldFuturesLow,
-            String goldRefineBuy, String goldRefineSell, String goldRefineHigh, String goldRefineLow,
-            String goldRtgsBuy, String goldRtgsSell, String goldRtgsHigh, String goldRtgsLow,
-            String goldDollarBuy, String goldDollarSell, String goldDollarHigh, String goldDollarLow,
-            String silverDollarBuy, String silverDollarSell, String silverDollarHigh, String silverDollarLow,
-            String dollarBuy, String dollarSell, String dollarHigh, String dollarLow) {
-
-        // Method to set text color and drawable based on rate change
-
-        // Retrieve previous rates from SharedPreferences or your preferred storage
-        SharedPreferences prefs = getSharedPreferences("RateTracker", MODE_PRIVATE);
-
-        // Gold 995 Rates
-        setRateStyle(this.gold995Buy, gold995Buy,
-                prefs.getString("previous_gold_995_buy", gold995Buy));
-        setRateStyle(this.gold995Sell, gold995Sell,
-                prefs.getString("previous_gold_995_sell", gold995Sell));
-
-        // Silver Future Rates
-        setRateStyle(this.silverFutureBuy, silverFutureBuy,
-                prefs.getString("previous_silver_future_buy", silverFutureBuy));
-        setRateStyle(this.silverFutureSell, silverFutureSell,
-                prefs.getString("previous_silver_future_sell", silverFutureSell));
-
-        // Gold Futures Rates
-        setRateStyle(this.goldFuturesBuy, goldFuturesBuy,
-                prefs.getString("previous_gold_futures_buy", goldFuturesBuy));
-        setRateStyle(this.goldFuturesSell, goldFuturesSell,
-                prefs.getString("previous_gold_futures_sell", goldFuturesSell));
-
-        // Gold Refine Section
-        setRateStyle(this.goldRefineBuy, goldRefineBuy,
-                prefs.getString("previous_gold_refine_buy", goldRefineBuy));
-        setRateStyle(this.goldRefineSell, goldRefineSell,
-                prefs.getString("previous_gold_refine_sell", goldRefineSell));
-
-        // Gold RTGS Section
-        setRateStyle(this.goldRtgsBuy, goldRtgsBuy,
-                prefs.getString("previous_gold_rtgs_buy", goldRtgsBuy));
-        setRateStyle(this.goldRtgsSell, goldRtgsSell,
-                prefs.getString("previous_gold_rtgs_sell", goldRtgsSell));
-
-        // Gold Dollar Section
-        setRateStyle(this.goldDollarBuy, goldDollarBuy,
-                prefs.getString("previous_gold_dollar_buy", goldDollarBuy));
-        setRateStyle(this.goldDollarSell, goldDollarSell,
-                prefs.getString("previous_gold_dollar_sell", goldDollarSell));
-
-        // Silver Dollar Section
-        setRateStyle(this.silverDollarBuy, silverDollarBuy,
-                prefs.getString("previous_silver_dollar_buy", silverDollarBuy));
-        setRateStyle(this.silverDollarSell, silverDollarSell,
-                prefs.getString("previous_silver_dollar_sell", silverDollarSell));
-
-        // Dollar Section
-        setRateStyle(this.dollarBuy, dollarBuy,
-                prefs.getString("previous_dollar_buy", dollarBuy));
-        setRateStyle(this.dollarSell, dollarSell,
-                prefs.getString("previous_dollar_sell", dollarSell));
-
-        SharedPreferences.Editor editor = prefs.edit();
-        editor.putString("previous_gold_995_buy", gold995Buy);
-        editor.putString("previous_gold_995_sell", gold995Sell);
-        editor.putString("previous_silver_future_buy", silverFutureBuy);
-        editor.putString("previous_silver_future_sell", silverFutureSell);
-        editor.putString("previous_gold_futures_buy", goldFuturesBuy);
-        editor.putString("previous_gold_futures_sell", goldFuturesSell);
-        editor.putString("previous_gold_refine_buy", goldRefineBuy);
-        editor.putString("previous_gold_refine_sell", goldRefineSell);
-        editor.putString("previous_gold_rtgs_buy", goldRtgsBuy);
-        editor.putString("previous_gold_rtgs_sell", goldRtgsSell);
-        editor.putString("previous_gold_dollar_buy", goldDollarBuy);
-        editor.putString("previous_gold_dollar_sell", goldDollarSell);
-        editor.putString("previous_silver_dollar_buy", silverDollarBuy);
-        editor.putString("previous_silver_dollar_sell", silverDollarSell);
-        editor.putString("previous_dollar_buy", dollarBuy);
-        editor.putString("previous_dollar_sell", dollarSell);
-
-        editor.apply();
-
+    private void updateExtendedRatesUI(LiveQuote quote) {
+        // Already recorded when the snapshot came over the bus; this covers the cached one
+        RateTracker tracker = RateTracker.getInstance();
+        tracker.record(quote);
+        for (int instrument = 0; instrument < LiveQuote.INSTRUMENT_COUNT; instrument++) {
+            // Arrows compare the tracker's last two ticks, so only if they are this snapshot's
+            boolean current = tracker.getVersion(instrument) == quote.getVersion();
+            setRateStyle(buyRateViews[instrument], quote.getBuyText(instrument),
+                    current ? tracker.getChangeType(instrument, RateTracker.SIDE_BUY) : RateTracker.CHANGE_NONE);
+            setRateStyle(sellRateViews[instrument], quote.getSellText(instrument),
+                    current ? tracker.getChangeType(instrument, RateTracker.SIDE_SELL) : RateTracker.CHANGE_NONE);
+        }
     }
 
     // Helper method to set text if TextView is not null
@@ -637,43 +576,6 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
-    // Update widget method to include extended data
-    private void updateWidgetsWithExtendedData(
-            String goldRate, String silverRate, String lastUpdated,
-            String yesterdayGoldRate, String yesterdaySilverRate,
-            String goldChangeValue, String silverChangeValue,
-            String goldFutureRate, String silverFutureRate,
-            String goldDollarRate, String silverDollarRate, String inrRate) {
-        // Create intent to update widgets
-        Intent updateIntent = new Intent(this, RatesWidgetProvider.class);
-        updateIntent.setAction(AppWidgetManager.ACTION_APPWIDGET_UPDATE);
-
-        // Get all widget IDs
-        AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(this);
-        int[] appWidgetIds = appWidgetManager.getAppWidgetIds(
-                new ComponentName(this, RatesWidgetProvider.class));
-        updateIntent.putExtra(AppWidgetManager.EXTRA_APPWIDGET_IDS, appWidgetIds);
-
-        // Add extended rates data
-        updateIntent.putExtra("goldRate", goldRate);
-        updateIntent.putExtra("silverRate", silverRate);
-        updateIntent.putExtra("lastUpdated", lastUpdated);
-        updateIntent.putExtra("yesterdayGoldRate", yesterdayGoldRate);
-        updateIntent.putExtra("yesterdaySilverRate", yesterdaySilverRate);
-        updateIntent.putExtra("goldChangeValue", goldChangeValue);
-        updateIntent.putExtra("silverChangeValue", silverChangeValue);
-
-        // Add new extended data
-        updateIntent.putExtra("goldFutureRate", goldFutureRate);
-        updateIntent.putExtra("silverFutureRate", silverFutureRate);
-        updateIntent.putExtra("goldDollarRate", goldDollarRate);
-        updateIntent.putExtra("silverDollarRate", silverDollarRate);
-        updateIntent.putExtra("inrRate", inrRate);
-
-        // Send the broadcast
-        sendBroadcast(updateIntent);
-    }
-
     private void applyThemeAdjustments(Toolbar toolbar) {
         int currentNightMode = getResources().getConfiguration().uiMode & Configuration.UI_MODE_NIGHT_MASK;
 
@@ -1,10 +1,13 @@
 package com.gcjewellers.rateswidget;
 
-import android.content.SharedPreferences;
+import android.Manifest;
+import android.content.pm.PackageManager;
+import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
 import android.text.TextUtils;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -15,6 +18,8 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.app.ActivityCompat;
+import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -22,22 +27,24 @@ import com.google.android.material.button.MaterialButton;
 import com.google.android.material.card.MaterialCardView;
 import com.google.android.material.textfield.TextInputEditText;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 
 public class RateCheckActivity extends AppCompatActivity {
+    private static final String TAG = "RateCheckActivity";
+
+    private static final int REQUEST_NOTIFICATIONS = 1;
 
-    // SharedPreferences keys
-    private static final String PREFS_NAME = "RateAlertPrefs";
-    private static final String CONDITIONS_KEY = "AlertConditions";
+    // Spinner entries, by position
+    private static final String[] METAL_NAMES = {"Gold", "Silver"};
+    private static final String[] CONDITION_NAMES = {"Match", "Below", "Above"};
 
     // Default rates (in case real‑time fetch fails)
     private double currentGoldRate = 58000.0;
@@ -49,10 +56,16 @@ public class RateCheckActivity extends AppCompatActivity {
     private MaterialButton btnSaveConditions;
     private ConditionAdapter conditionAdapter;
 
+    // Store reads and writes stay off the main thread
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private AlertConditionStore conditionStore;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_rate_check);
+        conditionStore = AlertConditionStore.getInstance(this);
 
         // Set up RecyclerView and adapter
         rvConditions = findViewById(R.id.rv_conditions);
@@ -63,24 +76,47 @@ public class RateCheckActivity extends AppCompatActivity {
         // Bind buttons
         btnAddCondition = findViewById(R.id.btn_add_condition);
         btnSaveConditions = findViewById(R.id.btn_save_conditions);
+        // Edits wait for the saved conditions, which would otherwise replace them
+        btnAddCondition.setEnabled(false);
+        btnSaveConditions.setEnabled(false);
 
         // Add a new blank condition on click
         btnAddCondition.setOnClickListener(view -> {
-            conditionAdapter.addCondition(new JSONObject());
+            conditionAdapter.addCondition(new AlertConditionStore.Condition());
         });
 
-        // Save conditions to SharedPreferences on click
+        // Write only the conditions that were added, edited or removed
         btnSaveConditions.setOnClickListener(view -> {
-            JSONArray conditionsArray = new JSONArray();
-            for (JSONObject condition : conditionAdapter.getConditions()) {
-                conditionsArray.put(condition);
+            // Commit a threshold still being typed
+            View focused = getCurrentFocus();
+            if (focused != null) {
+                focused.clearFocus();
             }
-            SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-            SharedPreferences.Editor editor = prefs.edit();
-            editor.putString(CONDITIONS_KEY, conditionsArray.toString());
-            editor.apply();
-            Toast.makeText(RateCheckActivity.this, "Alert conditions saved.", Toast.LENGTH_SHORT).show();
-            finish();
+            btnSaveConditions.setEnabled(false);
+            List<AlertConditionStore.Condition> changed = new ArrayList<>(conditionAdapter.getChanged());
+            long[] removed = conditionAdapter.getRemovedIds();
+            executor.execute(() -> {
+                try {
+                    conditionStore.applyChanges(changed, removed);
+                    // Recompile the alert index; only touched conditions re-arm
+                    long[] touched = Arrays.copyOf(removed, removed.length + changed.size());
+                    int i = removed.length;
+                    for (AlertConditionStore.Condition condition : changed) {
+                        touched[i++] = condition.id;
+                    }
+                    AlertEngine.getInstance(this).reload(touched);
+                    mainHandler.post(() -> {
+                        Toast.makeText(RateCheckActivity.this, "Alert conditions saved.", Toast.LENGTH_SHORT).show();
+                        finish();
+                    });
+                } catch (Exception e) {
+                    Log.e(TAG, "Error saving alert conditions", e);
+                    mainHandler.post(() -> {
+                        btnSaveConditions.setEnabled(true);
+                        Toast.makeText(RateCheckActivity.this, "Could not save alert conditions.", Toast.LENGTH_SHORT).show();
+                    });
+                }
+            });
         });
 
         // Load any saved conditions
@@ -88,95 +124,79 @@ public class RateCheckActivity extends AppCompatActivity {
 
         // Fetch live rates from the API in the background
         fetchRealTimeRates();
+
+        // Alerts are delivered as notifications
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                && ContextCompat.checkSelfPermission(this, Manifest.permission.POST_NOTIFICATIONS)
+                        != PackageManager.PERMISSION_GRANTED) {
+            ActivityCompat.requestPermissions(this,
+                    new String[]{Manifest.permission.POST_NOTIFICATIONS}, REQUEST_NOTIFICATIONS);
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        executor.shutdown();
     }
 
     /**
-     * Loads previously saved alert conditions from SharedPreferences.
+     * Loads previously saved alert conditions from the condition store.
      */
     private void loadAlertSettings() {
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        String conditionsJson = prefs.getString(CONDITIONS_KEY, "[]");
-        try {
-            JSONArray conditionsArray = new JSONArray(conditionsJson);
-            for (int i = 0; i < conditionsArray.length(); i++) {
-                JSONObject condition = conditionsArray.getJSONObject(i);
-                conditionAdapter.addCondition(condition);
+        executor.execute(() -> {
+            try {
+                List<AlertConditionStore.Condition> conditions = conditionStore.getConditions();
+                mainHandler.post(() -> {
+                    conditionAdapter.setConditions(conditions);
+                    enableEditing();
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "Error loading alert conditions", e);
+                // New conditions can still be added
+                mainHandler.post(this::enableEditing);
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        });
+    }
+
+    private void enableEditing() {
+        btnAddCondition.setEnabled(true);
+        btnSaveConditions.setEnabled(true);
     }
 
     /**
-     * Asynchronously fetches real‑time rates from a live endpoint and updates instance variables.
-     * This method parses a JSON response and updates currentGoldRate and currentSilverRate.
+     * Fills currentGoldRate and currentSilverRate from the last saved snapshot at once,
+     * then from the network if the rates have moved since.
      */
     private void fetchRealTimeRates() {
-        new Thread(() -> {
-            try {
-                URL url = new URL("https://goldrate.divyanshbansal.com/api/live");
-                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-                connection.setRequestMethod("GET");
-                connection.setConnectTimeout(5000);
-                connection.setReadTimeout(5000);
-                int responseCode = connection.getResponseCode();
-
-                if (responseCode == HttpURLConnection.HTTP_OK) {
-                    BufferedReader reader = new BufferedReader(
-                            new InputStreamReader(connection.getInputStream()));
-                    StringBuilder responseBuilder = new StringBuilder();
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        responseBuilder.append(line);
-                    }
-                    reader.close();
-                    connection.disconnect();
-
-                    JSONArray jsonArray = new JSONArray(responseBuilder.toString());
-                    final int GOLD_ROW = 5;
-                    final int SILVER_ROW = 4;
-                    final int RATE_COLUMN = 1;
-                    String goldRateStr = "0";
-                    String silverRateStr = "0";
-
-                    if (jsonArray.length() > Math.max(GOLD_ROW, SILVER_ROW)) {
-                        JSONArray goldRow = jsonArray.getJSONArray(GOLD_ROW);
-                        JSONArray silverRow = jsonArray.getJSONArray(SILVER_ROW);
-                        if (goldRow.length() > RATE_COLUMN) {
-                            goldRateStr = goldRow.getString(RATE_COLUMN);
-                        }
-                        if (silverRow.length() > RATE_COLUMN) {
-                            silverRateStr = silverRow.getString(RATE_COLUMN);
-                        }
-                    }
-
-                    double fetchedGoldRate = parseRate(goldRateStr);
-                    double fetchedSilverRate = parseRate(silverRateStr);
-
-                    // Update the rates on the UI thread
-                    new Handler(Looper.getMainLooper()).post(() -> {
-                        currentGoldRate = fetchedGoldRate;
-                        currentSilverRate = fetchedSilverRate;
-                        // Optionally, refresh the adapter to update thresholds
-                        conditionAdapter.notifyDataSetChanged();
-                    });
+        new RatesRepository(this).fetchStaleWhileRevalidate(new RatesRepository.RevalidatingRatesCallback() {
+            @Override
+            public void onRates(LiveQuote quote, long ageMillis, boolean fromCache) {
+                if (!Double.isNaN(quote.getSell(LiveQuote.GOLD))) {
+                    currentGoldRate = quote.getSell(LiveQuote.GOLD);
                 }
-            } catch (Exception e) {
-                e.printStackTrace();
+                if (!Double.isNaN(quote.getSell(LiveQuote.SILVER_FUTURE))) {
+                    currentSilverRate = quote.getSell(LiveQuote.SILVER_FUTURE);
+                }
+                // Optionally, refresh the adapter to update thresholds
+                conditionAdapter.notifyDataSetChanged();
             }
-        }).start();
+
+            @Override
+            public void onError(String errorMessage) {
+                Log.e(TAG, "Error fetching live rates: " + errorMessage);
+            }
+        });
     }
 
     /**
-     * Utility method to parse a string rate to a double.
+     * Shows a threshold without a trailing ".0", or empty when none is set.
      */
-    private double parseRate(String rateStr) {
-        try {
-            rateStr = rateStr.replaceAll("[^\\d.]", "");
-            return Double.parseDouble(rateStr);
-        } catch (Exception e) {
-            return 0;
+    private static String formatThreshold(double threshold) {
+        if (Double.isNaN(threshold)) {
+            return "";
         }
+        return BigDecimal.valueOf(threshold).stripTrailingZeros().toPlainString();
     }
 
     /**
@@ -184,13 +204,26 @@ public class RateCheckActivity extends AppCompatActivity {
      */
     class ConditionAdapter extends RecyclerView.Adapter<ConditionAdapter.ViewHolder> {
 
-        private final List<JSONObject> conditionList = new ArrayList<>();
+        private final List<AlertConditionStore.Condition> conditionList = new ArrayList<>();
+        // Conditions to write on save, and saved conditions to delete
+        private final Set<AlertConditionStore.Condition> changed = new LinkedHashSet<>();
+        private final List<Long> removedIds = new ArrayList<>();
+
+        /**
+         * Replaces the list with conditions loaded from the store.
+         */
+        public void setConditions(List<AlertConditionStore.Condition> conditions) {
+            conditionList.clear();
+            conditionList.addAll(conditions);
+            notifyDataSetChanged();
+        }
 
         /**
          * Adds a new condition entry.
          */
-        public void addCondition(JSONObject condition) {
+        public void addCondition(AlertConditionStore.Condition condition) {
             conditionList.add(condition);
+            changed.add(condition);
             notifyItemInserted(conditionList.size() - 1);
         }
 
@@ -199,7 +232,11 @@ public class RateCheckActivity extends AppCompatActivity {
          */
         public void removeCondition(int position) {
             if (position >= 0 && position < conditionList.size()) {
-                conditionList.remove(position);
+                AlertConditionStore.Condition condition = conditionList.remove(position);
+                changed.remove(condition);
+                if (condition.id != 0) {
+                    removedIds.add(condition.id);
+                }
                 notifyItemRemoved(position);
             } else {
                 Toast.makeText(RateCheckActivity.this, "Invalid condition removal", Toast.LENGTH_SHORT).show();
@@ -207,10 +244,21 @@ public class RateCheckActivity extends AppCompatActivity {
         }
 
         /**
-         * Returns the list of conditions.
+         * Returns the conditions added or edited since they were loaded.
          */
-        public List<JSONObject> getConditions() {
-            return conditionList;
+        public Set<AlertConditionStore.Condition> getChanged() {
+            return changed;
+        }
+
+        /**
+         * Returns the ids of saved conditions removed since they were loaded.
+         */
+        public long[] getRemovedIds() {
+            long[] ids = new long[removedIds.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = removedIds.get(i);
+            }
+            return ids;
         }
 
         @NonNull
@@ -223,72 +271,62 @@ public class RateCheckActivity extends AppCompatActivity {
 
         @Override
         public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-            JSONObject conditionData = conditionList.get(position);
-            // Retrieve existing values or assign defaults
-            String metal = conditionData.optString("metal", "Gold");
-            String condType = conditionData.optString("condition", "Match");
-            String threshold = conditionData.optString("threshold", "");
+            AlertConditionStore.Condition condition = conditionList.get(position);
 
             // Set spinner selections
-            holder.spinnerMetal.setSelection(metal.equalsIgnoreCase("Silver") ? 1 : 0);
-            ArrayAdapter<String> condAdapter = (ArrayAdapter<String>) holder.spinnerCondition.getAdapter();
-            int pos = condAdapter.getPosition(condType);
-            holder.spinnerCondition.setSelection(pos >= 0 ? pos : 0);
+            holder.spinnerMetal.setSelection(condition.instrument == LiveQuote.SILVER_FUTURE ? 1 : 0);
+            holder.spinnerCondition.setSelection(condition.direction);
 
             // Set the threshold field (if already modified, user override remains)
-            holder.edtThreshold.setText(threshold);
+            holder.edtThreshold.setText(formatThreshold(condition.threshold));
 
             // When the metal selection changes, update the threshold if it's empty.
             holder.spinnerMetal.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
                 @Override
                 public void onItemSelected(AdapterView<?> parent, View view, int itemPosition, long id) {
-                    try {
-                        conditionData.put("metal", (itemPosition == 0) ? "Gold" : "Silver");
-                    } catch (Exception e) {
-                        e.printStackTrace();
+                    int instrument = itemPosition == 0 ? LiveQuote.GOLD : LiveQuote.SILVER_FUTURE;
+                    if (condition.instrument != instrument) {
+                        condition.instrument = instrument;
+                        changed.add(condition);
                     }
                     // If threshold is empty, auto-populate with the current real‑time rate.
                     if (TextUtils.isEmpty(holder.edtThreshold.getText().toString())) {
-                        if (itemPosition == 0) {
-                            holder.edtThreshold.setText(String.valueOf(currentGoldRate));
-                        } else {
-                            holder.edtThreshold.setText(String.valueOf(currentSilverRate));
-                        }
+                        condition.threshold = itemPosition == 0 ? currentGoldRate : currentSilverRate;
+                        changed.add(condition);
+                        holder.edtThreshold.setText(formatThreshold(condition.threshold));
                     }
                 }
                 @Override
                 public void onNothingSelected(AdapterView<?> parent) {}
             });
 
-            // When the condition spinner changes, update JSON accordingly.
+            // When the condition spinner changes, update the record accordingly.
             holder.spinnerCondition.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
                 @Override
                 public void onItemSelected(AdapterView<?> parent, View view, int itemPosition, long id) {
-                    String selectedCond = (String) holder.spinnerCondition.getItemAtPosition(itemPosition);
-                    try {
-                        conditionData.put("condition", selectedCond);
-                    } catch (Exception e) {
-                        e.printStackTrace();
+                    int direction = AlertEngine.parseDirection(CONDITION_NAMES[itemPosition]);
+                    if (condition.direction != direction) {
+                        condition.direction = direction;
+                        changed.add(condition);
                     }
                 }
                 @Override
                 public void onNothingSelected(AdapterView<?> parent) {}
             });
 
-            // When the threshold field loses focus, update the JSON.
+            // When the threshold field loses focus, update the record.
             holder.edtThreshold.setOnFocusChangeListener((v, hasFocus) -> {
                 if (!hasFocus) {
-                    String newThreshold = holder.edtThreshold.getText().toString().trim();
-                    try {
-                        conditionData.put("threshold", newThreshold);
-                    } catch (Exception e) {
-                        e.printStackTrace();
+                    double threshold = LiveQuote.parseRate(holder.edtThreshold.getText().toString());
+                    if (Double.compare(condition.threshold, threshold) != 0) {
+                        condition.threshold = threshold;
+                        changed.add(condition);
                     }
                 }
             });
 
             // Wire up the Remove button.
-            holder.btnRemove.setOnClickListener(v -> removeCondition(position));
+            holder.btnRemove.setOnClickListener(v -> removeCondition(holder.getAdapterPosition()));
         }
 
         @Override
@@ -316,13 +354,13 @@ public class RateCheckActivity extends AppCompatActivity {
 
                 // Initialize metal spinner (Gold, Silver)
                 ArrayAdapter<String> metalAdapter = new ArrayAdapter<>(itemView.getContext(),
-                        android.R.layout.simple_spinner_item, new String[]{"Gold", "Silver"});
+                        android.R.layout.simple_spinner_item, METAL_NAMES);
                 metalAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
                 spinnerMetal.setAdapter(metalAdapter);
 
                 // Initialize condition spinner (Match, Below, Above)
                 ArrayAdapter<String> conditionAdapter = new ArrayAdapter<>(itemView.getContext(),
-                        android.R.layout.simple_spinner_item, new String[]{"Match", "Below", "Above"});
+                        android.R.layout.simple_spinner_item, CONDITION_NAMES);
                 conditionAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
                 spinnerCondition.setAdapter(conditionAdapter);
             }
@@ -1,88 +1,185 @@
 package com.gcjewellers.rateswidget;
 
-import java.util.HashMap;
-import java.util.Map;
+/**
+ * Recent buy and sell ticks of every instrument, kept in memory for change arrows and
+ * short-window trends.
+ *
+ * Each instrument and side has a fixed-capacity ring of primitive doubles; a new
+ * snapshot appends one tick per side and overwrites the oldest once a ring is full.
+ * Writes and reads of an instrument hold only that instrument's lock, so the snapshot
+ * bus thread recording a new snapshot and the main thread drawing arrows contend only
+ * when they touch the same instrument. Reads allocate nothing: scalars are returned
+ * directly and series are copied into a caller-owned array. Snapshots are recorded at
+ * most once and in version order, so the same snapshot arriving from two paths is only
+ * counted once.
+ */
+public final class RateTracker {
+    public static final int SIDE_BUY = 0;
+    public static final int SIDE_SELL = 1;
+
+    public static final int CHANGE_NONE = 0;
+    public static final int CHANGE_UP = 1;
+    public static final int CHANGE_DOWN = 2;
+
+    // Ticks kept per instrument and side; about an hour of streamed updates
+    static final int CAPACITY = 64;
+
+    private static final int SIDES = 2;
 
-public class RateTracker {
     private static final RateTracker instance = new RateTracker();
-    
-    private final Map<String, String> previousRates = new HashMap<>();
-    
-    private RateTracker() {}
-    
+
+    private final Object[] locks = new Object[LiveQuote.INSTRUMENT_COUNT];
+    // Ring of instrument i, side s starts at (i * SIDES + s) * CAPACITY
+    private final double[] ticks = new double[LiveQuote.INSTRUMENT_COUNT * SIDES * CAPACITY];
+    // Next write position and tick count per ring
+    private final int[] heads = new int[LiveQuote.INSTRUMENT_COUNT * SIDES];
+    private final int[] sizes = new int[LiveQuote.INSTRUMENT_COUNT * SIDES];
+    // Version of the last snapshot recorded per instrument
+    private final long[] versions = new long[LiveQuote.INSTRUMENT_COUNT];
+
+    private RateTracker() {
+        for (int instrument = 0; instrument < LiveQuote.INSTRUMENT_COUNT; instrument++) {
+            locks[instrument] = new Object();
+            versions[instrument] = -1;
+        }
+    }
+
     public static RateTracker getInstance() {
         return instance;
     }
-    
-    public void trackRate(String rateKey, String rateValue) {
-        previousRates.put(rateKey, rateValue);
+
+    /**
+     * Appends the snapshot's buy and sell rates as the newest ticks. A snapshot no newer
+     * than the last one recorded is ignored, as is an unparseable rate.
+     */
+    public void record(LiveQuote quote) {
+        long version = quote.getVersion();
+        for (int instrument = 0; instrument < LiveQuote.INSTRUMENT_COUNT; instrument++) {
+            synchronized (locks[instrument]) {
+                if (version <= versions[instrument]) {
+                    continue;
+                }
+                versions[instrument] = version;
+                append(ring(instrument, SIDE_BUY), quote.getBuy(instrument));
+                append(ring(instrument, SIDE_SELL), quote.getSell(instrument));
+            }
+        }
     }
-    
-    public String getPreviousRate(String rateKey) {
-        return previousRates.getOrDefault(rateKey, null);
+
+    private void append(int ring, double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        ticks[ring * CAPACITY + heads[ring]] = value;
+        heads[ring] = (heads[ring] + 1) % CAPACITY;
+        if (sizes[ring] < CAPACITY) {
+            sizes[ring]++;
+        }
     }
-    
-    public RateChange getChangeInfo(String rateKey, String currentRate) {
-        String previousRate = getPreviousRate(rateKey);
-        
-        if (previousRate == null) {
-            trackRate(rateKey, currentRate);
-            return new RateChange(0, RateChange.CHANGE_NONE);
+
+    /**
+     * Version of the last snapshot recorded for {@code instrument}, or -1 if none.
+     */
+    public long getVersion(int instrument) {
+        synchronized (locks[instrument]) {
+            return versions[instrument];
         }
-        
-        try {
-            float current = Float.parseFloat(currentRate.replace(",", ""));
-            float previous = Float.parseFloat(previousRate.replace(",", ""));
-            
-            float change = current - previous;
-            int changeType;
-            
-            if (change > 0) {
-                changeType = RateChange.CHANGE_UP;
-            } else if (change < 0) {
-                changeType = RateChange.CHANGE_DOWN;
-            } else {
-                changeType = RateChange.CHANGE_NONE;
-            }
-            
-            trackRate(rateKey, currentRate);
-            return new RateChange(change, changeType);
-            
-        } catch (NumberFormatException e) {
-            trackRate(rateKey, currentRate);
-            return new RateChange(0, RateChange.CHANGE_NONE);
+    }
+
+    public int size(int instrument, int side) {
+        synchronized (locks[instrument]) {
+            return sizes[ring(instrument, side)];
         }
     }
-    
-    public static class RateChange {
-        public static final int CHANGE_NONE = 0;
-        public static final int CHANGE_UP = 1;
-        public static final int CHANGE_DOWN = 2;
-        
-        private final float changeAmount;
-        private final int changeType;
-        
-        public RateChange(float changeAmount, int changeType) {
-            this.changeAmount = changeAmount;
-            this.changeType = changeType;
+
+    /**
+     * Latest tick, or NaN if there is none.
+     */
+    public double getLast(int instrument, int side) {
+        return getBack(instrument, side, 0);
+    }
+
+    /**
+     * Tick before the latest, or NaN if there are fewer than two.
+     */
+    public double getPrevious(int instrument, int side) {
+        return getBack(instrument, side, 1);
+    }
+
+    /**
+     * Change from the previous tick to the latest, or NaN if there are fewer than two.
+     */
+    public double getDelta(int instrument, int side) {
+        synchronized (locks[instrument]) {
+            int ring = ring(instrument, side);
+            if (sizes[ring] < 2) {
+                return Double.NaN;
+            }
+            return at(ring, 0) - at(ring, 1);
         }
-        
-        public float getChangeAmount() {
-            return changeAmount;
+    }
+
+    /**
+     * Change over the last {@code count} ticks: the latest minus the one {@code count}
+     * back, or the oldest kept if there are fewer. NaN if there are fewer than two.
+     */
+    public double getMomentum(int instrument, int side, int count) {
+        synchronized (locks[instrument]) {
+            int ring = ring(instrument, side);
+            int size = sizes[ring];
+            if (size < 2 || count < 1) {
+                return Double.NaN;
+            }
+            return at(ring, 0) - at(ring, Math.min(count, size - 1));
         }
-        
-        public int getChangeType() {
-            return changeType;
+    }
+
+    /**
+     * Direction of the latest change: {@link #CHANGE_UP}, {@link #CHANGE_DOWN}, or
+     * {@link #CHANGE_NONE} when unchanged or with fewer than two ticks.
+     */
+    public int getChangeType(int instrument, int side) {
+        double delta = getDelta(instrument, side);
+        if (delta > 0) {
+            return CHANGE_UP;
+        } else if (delta < 0) {
+            return CHANGE_DOWN;
         }
-        
-        public String getFormattedChange() {
-            if (changeType == CHANGE_NONE) {
-                return "0";
-            } else if (changeType == CHANGE_UP) {
-                return "+" + Math.round(changeAmount);
-            } else {
-                return String.valueOf(Math.round(changeAmount));
+        return CHANGE_NONE;
+    }
+
+    /**
+     * Copies up to {@code out.length} of the most recent ticks into {@code out}, oldest
+     * first, and returns how many were copied.
+     */
+    public int copyRecent(int instrument, int side, double[] out) {
+        synchronized (locks[instrument]) {
+            int ring = ring(instrument, side);
+            int count = Math.min(out.length, sizes[ring]);
+            for (int i = 0; i < count; i++) {
+                out[i] = at(ring, count - 1 - i);
             }
+            return count;
         }
     }
-}
\ No newline at end of file
+
+    private double getBack(int instrument, int side, int back) {
+        synchronized (locks[instrument]) {
+            int ring = ring(instrument, side);
+            return back < sizes[ring] ? at(ring, back) : Double.NaN;
+        }
+    }
+
+    // Tick the given number of steps before the latest; caller holds the lock and checks the size
+    private double at(int ring, int back) {
+        int index = heads[ring] - 1 - back;
+        if (index < 0) {
+            index += CAPACITY;
+        }
+        return ticks[ring * CAPACITY + index];
+    }
+
+    private static int ring(int instrument, int side) {
+        return instrument * SIDES + side;
+    }
+}
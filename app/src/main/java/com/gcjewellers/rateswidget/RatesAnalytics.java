@@ -0,0 +1,396 @@
+package com.gcjewellers.rateswidget;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Computes dashboard analytics from the daily rollups in {@link RatesTickStore}.
+ *
+ * Reports are built on a background thread and cached per period; each covers both
+ * metals, so switching series reuses it. The cache and the year of daily bars behind it
+ * are dropped when the store's data version changes, but live ticks arriving every few
+ * seconds only move today's bar, so a cache younger than {@link #LIVE_GRACE_MS} is kept
+ * through them and switching tabs stays a map lookup. History is synced once per screen
+ * open through {@link #syncHistory}, never per report.
+ */
+public final class RatesAnalytics {
+    private static final String TAG = "RatesAnalytics";
+
+    public static final int PERIOD_WEEK = 0;
+    public static final int PERIOD_MONTH = 1;
+    public static final int PERIOD_YEAR = 2;
+
+    public static final int DATA_GOLD = 0;
+    public static final int DATA_SILVER = 1;
+    public static final int DATA_BOTH = 2;
+
+    public static final int METAL_GOLD = 0;
+    public static final int METAL_SILVER = 1;
+    public static final int METAL_COUNT = 2;
+
+    // INR gold (per 10g) and MCX silver (per kg), sell side
+    private static final int[] METAL_INSTRUMENTS = {LiveQuote.GOLD, LiveQuote.SILVER_FUTURE};
+
+    private static final long DAY_MS = 86400000L;
+    private static final double TRADING_DAYS_PER_YEAR = 252;
+    // A cache this young survives new ticks
+    private static final long LIVE_GRACE_MS = 5 * 60 * 1000L;
+
+    public interface Callback {
+        void onReport(Report report);
+        void onError(String message);
+    }
+
+    /**
+     * Immutable analytics for one period. Per-metal arrays are indexed by
+     * {@link #METAL_GOLD} and {@link #METAL_SILVER}; NaN marks a value with no data.
+     */
+    public static final class Report {
+        public final int period;
+
+        // Daily closes over the period
+        public final long[] trendTimestamps;
+        public final float[][] trend;
+
+        // Monthly averages (week and month periods) or quarterly averages (year)
+        public final String[] groupLabels;
+        public final float[][] groupAverages;
+
+        public final double[] periodReturn;
+        public final double[] volatility;
+        public final double[] maxDrawdown;
+        public final double[] periodHigh;
+        public final double[] periodLow;
+
+        // From golddollar/silverdollar
+        public final double goldSilverRatio;
+        public final double averageGoldSilverRatio;
+
+        Report(int period, long[] trendTimestamps, float[][] trend,
+               String[] groupLabels, float[][] groupAverages, double[] periodReturn,
+               double[] volatility, double[] maxDrawdown, double[] periodHigh, double[] periodLow,
+               double goldSilverRatio, double averageGoldSilverRatio) {
+            this.period = period;
+            this.trendTimestamps = trendTimestamps;
+            this.trend = trend;
+            this.groupLabels = groupLabels;
+            this.groupAverages = groupAverages;
+            this.periodReturn = periodReturn;
+            this.volatility = volatility;
+            this.maxDrawdown = maxDrawdown;
+            this.periodHigh = periodHigh;
+            this.periodLow = periodLow;
+            this.goldSilverRatio = goldSilverRatio;
+            this.averageGoldSilverRatio = averageGoldSilverRatio;
+        }
+
+        public boolean hasData() {
+            return trendTimestamps.length > 0;
+        }
+    }
+
+    private static volatile RatesAnalytics instance;
+
+    private final Context appContext;
+    private final RatesTickStore tickStore;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Guarded by this
+    private final Map<Integer, Report> cache = new HashMap<>();
+    private long cacheVersion = -1;
+    private long cacheBuiltAt;
+    private HistorySeries dailyBars;
+
+    private RatesAnalytics(Context context) {
+        appContext = context.getApplicationContext();
+        tickStore = RatesTickStore.getInstance(appContext);
+    }
+
+    public static RatesAnalytics getInstance(Context context) {
+        if (instance == null) {
+            synchronized (RatesAnalytics.class) {
+                if (instance == null) {
+                    instance = new RatesAnalytics(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Downloads whatever part of the year behind every period is missing locally, then
+     * runs {@code onChanged} on the main thread if that added rates. Call once when the
+     * dashboard opens; reports requested meanwhile are computed after it.
+     */
+    public void syncHistory(Runnable onChanged) {
+        executor.execute(() -> {
+            long before = tickStore.getDataVersion();
+            long now = System.currentTimeMillis();
+            try {
+                RatesHistorySync.sync(appContext, LiveQuote.GOLD, windowStart(now), now);
+            } catch (Exception e) {
+                Log.e(TAG, "Error syncing analytics history", e);
+            }
+            if (tickStore.getDataVersion() != before) {
+                synchronized (this) {
+                    // New history may reach back into any period, so no grace here
+                    cacheVersion = -1;
+                }
+                mainHandler.post(onChanged);
+            }
+        });
+    }
+
+    /**
+     * Delivers the report on the main thread: immediately when cached, otherwise after it
+     * has been computed in the background.
+     */
+    public void request(int period, Callback callback) {
+        Report cached = getCached(period);
+        if (cached != null) {
+            callback.onReport(cached);
+            return;
+        }
+        executor.execute(() -> {
+            Report report;
+            try {
+                report = compute(period);
+            } catch (Exception e) {
+                Log.e(TAG, "Error computing analytics", e);
+                mainHandler.post(() -> callback.onError(e.getMessage()));
+                return;
+            }
+            mainHandler.post(() -> callback.onReport(report));
+        });
+    }
+
+    private synchronized Report getCached(int period) {
+        return isCacheCurrent() ? cache.get(period) : null;
+    }
+
+    // Caller holds this
+    private boolean isCacheCurrent() {
+        if (cacheVersion == -1) {
+            return false;
+        }
+        return cacheVersion == tickStore.getDataVersion()
+                || SystemClock.elapsedRealtime() - cacheBuiltAt < LIVE_GRACE_MS;
+    }
+
+    /**
+     * Runs on the executor.
+     */
+    private Report compute(int period) {
+        long now = System.currentTimeMillis();
+        long windowStart = windowStart(now);
+
+        HistorySeries bars;
+        long version;
+        synchronized (this) {
+            if (!isCacheCurrent()) {
+                cache.clear();
+                dailyBars = null;
+                cacheVersion = tickStore.getDataVersion();
+                cacheBuiltAt = SystemClock.elapsedRealtime();
+            }
+            version = cacheVersion;
+            Report cached = cache.get(period);
+            if (cached != null) {
+                return cached;
+            }
+            bars = dailyBars;
+        }
+        if (bars == null) {
+            bars = tickStore.loadRollups(TickRollups.RESOLUTION_1D, windowStart, now);
+        }
+
+        Report report = buildReport(bars, period, now);
+        synchronized (this) {
+            if (version == cacheVersion) {
+                dailyBars = bars;
+                cache.put(period, report);
+            }
+        }
+        Log.d(TAG, "Computed period " + period + " from " + bars.size() + " bars");
+        return report;
+    }
+
+    private static long windowStart(long now) {
+        // Twelve calendar months back covers the monthly and quarterly comparisons too
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(now);
+        calendar.add(Calendar.MONTH, -11);
+        calendar.set(Calendar.DAY_OF_MONTH, 1);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return Math.min(calendar.getTimeInMillis(), now - 365 * DAY_MS);
+    }
+
+    private static long periodStart(int period, long now) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(now);
+        switch (period) {
+            case PERIOD_WEEK:
+                calendar.add(Calendar.DATE, -7);
+                break;
+            case PERIOD_YEAR:
+                calendar.add(Calendar.DATE, -365);
+                break;
+            default:
+                calendar.add(Calendar.MONTH, -1);
+                break;
+        }
+        return calendar.getTimeInMillis();
+    }
+
+    private static Report buildReport(HistorySeries bars, int period, long now) {
+        long start = TickRollups.bucketStart(periodStart(period, now), TickRollups.RESOLUTION_1D);
+        int first = 0;
+        while (first < bars.size() && bars.getTimestamp(first) < start) {
+            first++;
+        }
+        int count = bars.size() - first;
+
+        long[] trendTimestamps = new long[count];
+        float[][] trend = new float[METAL_COUNT][count];
+        for (int row = 0; row < count; row++) {
+            trendTimestamps[row] = bars.getTimestamp(first + row);
+            for (int metal = 0; metal < METAL_COUNT; metal++) {
+                trend[metal][row] = bars.getSell(METAL_INSTRUMENTS[metal], first + row);
+            }
+        }
+
+        double[] periodReturn = new double[METAL_COUNT];
+        double[] volatility = new double[METAL_COUNT];
+        double[] maxDrawdown = new double[METAL_COUNT];
+        double[] periodHigh = new double[METAL_COUNT];
+        double[] periodLow = new double[METAL_COUNT];
+        for (int metal = 0; metal < METAL_COUNT; metal++) {
+            RunningStats closeStats = new RunningStats();
+            RunningStats returnStats = new RunningStats();
+            RunningStats rangeStats = new RunningStats();
+            double firstClose = Double.NaN;
+            double peak = Double.NaN;
+            double drawdown = 0;
+            for (int row = 0; row < count; row++) {
+                float close = trend[metal][row];
+                if (Float.isNaN(close)) {
+                    continue;
+                }
+                // Daily highs and lows, not closes, bound the period
+                rangeStats.add(bars.getHigh(METAL_INSTRUMENTS[metal], false, first + row));
+                rangeStats.add(bars.getLow(METAL_INSTRUMENTS[metal], false, first + row));
+                if (closeStats.getCount() == 0) {
+                    firstClose = close;
+                } else if (closeStats.getLast() > 0) {
+                    returnStats.add(close / closeStats.getLast() - 1);
+                }
+                closeStats.add(close);
+                peak = Double.isNaN(peak) ? close : Math.max(peak, close);
+                drawdown = Math.max(drawdown, (peak - close) / peak);
+            }
+            periodReturn[metal] = firstClose > 0 ? closeStats.getLast() / firstClose - 1 : Double.NaN;
+            volatility[metal] = returnStats.getStandardDeviation() * Math.sqrt(TRADING_DAYS_PER_YEAR);
+            maxDrawdown[metal] = Double.isNaN(peak) ? Double.NaN : drawdown;
+            periodHigh[metal] = rangeStats.getMax();
+            periodLow[metal] = rangeStats.getMin();
+        }
+
+        // Gold/silver ratio from the dollar quotes
+        RunningStats ratioStats = new RunningStats();
+        for (int row = first; row < bars.size(); row++) {
+            float gold = bars.getSell(LiveQuote.GOLD_DOLLAR, row);
+            float silver = bars.getSell(LiveQuote.SILVER_DOLLAR, row);
+            if (silver > 0) {
+                ratioStats.add(gold / silver);
+            }
+        }
+
+        // Per-month accumulators from eleven months back through the end of this quarter;
+        // quarters are merged from their months
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(now);
+        int currentMonth = calendar.get(Calendar.MONTH);
+        calendar.set(Calendar.DAY_OF_MONTH, 1);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        calendar.add(Calendar.MONTH, -11);
+        int monthCount = 14;
+        long[] monthStarts = new long[monthCount + 1];
+        String[] monthLabels = new String[monthCount];
+        SimpleDateFormat monthFormat = new SimpleDateFormat("MMM", Locale.getDefault());
+        for (int month = 0; month <= monthCount; month++) {
+            monthStarts[month] = calendar.getTimeInMillis();
+            if (month < monthCount) {
+                monthLabels[month] = monthFormat.format(calendar.getTime());
+            }
+            calendar.add(Calendar.MONTH, 1);
+        }
+
+        boolean quarterly = period == PERIOD_YEAR;
+        int groupCount = quarterly ? 4 : 12;
+        // Month index at which the oldest of the last four quarters begins
+        int firstQuarterMonth = 2 - currentMonth % 3;
+        String[] groupLabels = new String[groupCount];
+        if (quarterly) {
+            calendar.setTimeInMillis(monthStarts[firstQuarterMonth]);
+            for (int group = 0; group < groupCount; group++) {
+                groupLabels[group] = String.format(Locale.US, "Q%d '%02d",
+                        calendar.get(Calendar.MONTH) / 3 + 1, calendar.get(Calendar.YEAR) % 100);
+                calendar.add(Calendar.MONTH, 3);
+            }
+        } else {
+            System.arraycopy(monthLabels, 0, groupLabels, 0, groupCount);
+        }
+
+        float[][] groupAverages = new float[METAL_COUNT][groupCount];
+        for (int metal = 0; metal < METAL_COUNT; metal++) {
+            RunningStats[] monthly = new RunningStats[monthCount];
+            for (int month = 0; month < monthCount; month++) {
+                monthly[month] = new RunningStats();
+            }
+            int month = 0;
+            for (int row = 0; row < bars.size(); row++) {
+                long timestamp = bars.getTimestamp(row);
+                while (month < monthCount && timestamp >= monthStarts[month + 1]) {
+                    month++;
+                }
+                if (month < monthCount && timestamp >= monthStarts[month]) {
+                    monthly[month].add(bars.getSell(METAL_INSTRUMENTS[metal], row));
+                }
+            }
+            for (int group = 0; group < groupCount; group++) {
+                RunningStats groupStats;
+                if (quarterly) {
+                    groupStats = new RunningStats();
+                    for (int i = 0; i < 3; i++) {
+                        groupStats.merge(monthly[firstQuarterMonth + group * 3 + i]);
+                    }
+                } else {
+                    groupStats = monthly[group];
+                }
+                groupAverages[metal][group] = (float) groupStats.getMean();
+            }
+        }
+
+        return new Report(period, trendTimestamps, trend, groupLabels, groupAverages,
+                periodReturn, volatility, maxDrawdown, periodHigh, periodLow,
+                ratioStats.getLast(), ratioStats.getMean());
+    }
+}
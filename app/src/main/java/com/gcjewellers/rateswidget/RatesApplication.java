@@ -0,0 +1,61 @@
+package com.gcjewellers.rateswidget;
+
+import android.app.Application;
+import android.util.Log;
+
+/**
+ * Wires process-wide consumers of live rates once per process.
+ */
+public class RatesApplication extends Application {
+    private static final String TAG = "RatesApplication";
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // Every new live snapshot, polled or pushed, goes out once on the snapshot bus
+        RatesSnapshotBus bus = RatesSnapshotBus.getInstance(this);
+        LiveRatesClient.getInstance(this).addQuoteListener(bus::publish);
+
+        // It replaces the one shown on the next cold start...
+        LastQuoteCache quoteCache = LastQuoteCache.getInstance(this);
+        bus.subscribe(quoteCache::save);
+        // Read now, off the main thread, so widget receivers can peek at it without I/O
+        quoteCache.preload();
+
+        // ...which the board widget's list then re-reads...
+        bus.subscribe(quote -> {
+            try {
+                RatesBoardWidgetProvider.notifySnapshotChanged(this, quote);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to notify board widgets", e);
+            }
+        });
+
+        // ...is drawn on the small widgets...
+        bus.subscribe(quote -> RatesWidgetProvider.onSnapshot(this, quote));
+
+        // ...joins the recent ticks behind the change arrows...
+        bus.subscribe(RateTracker.getInstance()::record);
+
+        // ...becomes a tick in the local store...
+        RatesTickStore tickStore = RatesTickStore.getInstance(this);
+        bus.subscribe(quote -> {
+            try {
+                tickStore.insertQuote(quote);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to store live tick", e);
+            }
+        });
+
+        // ...and is checked against the saved rate alerts, whichever path fetched it
+        AlertEngine alertEngine = AlertEngine.getInstance(this);
+        bus.subscribe(quote -> {
+            try {
+                alertEngine.evaluate(quote);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to evaluate rate alerts", e);
+            }
+        });
+    }
+}
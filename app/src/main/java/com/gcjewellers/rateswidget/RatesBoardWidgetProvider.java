@@ -0,0 +1,131 @@
+package com.gcjewellers.rateswidget;
+
+import android.app.PendingIntent;
+import android.appwidget.AppWidgetManager;
+import android.appwidget.AppWidgetProvider;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Build;
+import android.util.Log;
+import android.widget.RemoteViews;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Home screen widget listing all eight instruments, for counters that need the full board
+ * without opening the app.
+ *
+ * The rows come from {@link RatesBoardWidgetService}, which reads the latest snapshot on
+ * {@link RatesSnapshotBus}; this provider never fetches itself. Refreshes go through
+ * {@link RatesRefreshWorker} like the small widget's, and each new snapshot reaches the
+ * list through {@link #notifySnapshotChanged}, subscribed to the bus.
+ */
+public class RatesBoardWidgetProvider extends AppWidgetProvider {
+    private static final String TAG = "RatesBoardWidget";
+
+    private static final long MIN_REFRESH_INTERVAL = 60 * 1000; // 1 minute
+
+    // Snapshot the lists were last told about
+    private static LiveQuote lastNotified;
+
+    @Override
+    public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
+        Log.d(TAG, "onUpdate called for " + appWidgetIds.length + " board widgets");
+        // The header shows the last known update time, read off the main thread when cold
+        RatesWidgetProvider.runWithCachedSnapshot(this, context, () -> {
+            LiveQuote cached = RatesSnapshotBus.getInstance(context).peekLatest();
+            for (int appWidgetId : appWidgetIds) {
+                try {
+                    appWidgetManager.updateAppWidget(appWidgetId, buildViews(context, appWidgetId, cached));
+                } catch (Exception e) {
+                    Log.e(TAG, "Error updating board widget " + appWidgetId, e);
+                }
+            }
+        });
+
+        // The board has no refresh button, so it keeps periodic refresh running while placed
+        RatesRefreshWorker.schedulePeriodic(context);
+        if (System.currentTimeMillis() - RatesRefreshWorker.getLastRefreshAt(context) >= MIN_REFRESH_INTERVAL) {
+            RatesRefreshWorker.refreshNow(context);
+        }
+    }
+
+    @Override
+    public void onDisabled(Context context) {
+        // Last board removed; the small widget's own setting decides from here
+        if (!new RatesWidgetProvider().isAutoRefreshEnabled(context)) {
+            RatesRefreshWorker.cancelPeriodic(context);
+        }
+        lastNotified = null;
+    }
+
+    private static RemoteViews buildViews(Context context, int appWidgetId, LiveQuote cached) {
+        RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.rates_board_widget);
+
+        Intent serviceIntent = new Intent(context, RatesBoardWidgetService.class);
+        serviceIntent.putExtra(AppWidgetManager.EXTRA_APPWIDGET_ID, appWidgetId);
+        // Distinct data keeps each widget's adapter from being shared with another's
+        serviceIntent.setData(Uri.parse(serviceIntent.toUri(Intent.URI_INTENT_SCHEME)));
+        views.setRemoteAdapter(R.id.board_list, serviceIntent);
+        views.setEmptyView(R.id.board_list, R.id.board_empty);
+
+        views.setTextViewText(R.id.board_updated_time, formatUpdatedTime(cached));
+        views.setOnClickPendingIntent(R.id.board_header, getOpenAppPendingIntent(context));
+        return views;
+    }
+
+    private static PendingIntent getOpenAppPendingIntent(Context context) {
+        Intent intent = new Intent(context, MainActivity.class);
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        return PendingIntent.getActivity(
+                context, 0, intent,
+                Build.VERSION.SDK_INT >= Build.VERSION_CODES.M
+                        ? PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+                        : PendingIntent.FLAG_UPDATE_CURRENT);
+    }
+
+    private static String formatUpdatedTime(LiveQuote quote) {
+        if (quote == null) {
+            return "--:--";
+        }
+        String time = new SimpleDateFormat("hh:mm a", Locale.getDefault()).format(new Date(quote.getFetchedAt()));
+        return LastQuoteCache.isStale(quote) ? "Stale · " + time : time;
+    }
+
+    /**
+     * Whether any board widget is on the home screen.
+     */
+    static boolean hasWidgets(Context context) {
+        return getWidgetIds(context).length > 0;
+    }
+
+    private static int[] getWidgetIds(Context context) {
+        return AppWidgetManager.getInstance(context).getAppWidgetIds(
+                new ComponentName(context, RatesBoardWidgetProvider.class));
+    }
+
+    /**
+     * Tells the board widgets a new snapshot was published. Their lists re-read it and the
+     * launcher rebinds only the rows whose views changed; a snapshot with the same rates
+     * as the last one only moves the header time.
+     */
+    static synchronized void notifySnapshotChanged(Context context, LiveQuote quote) {
+        int[] appWidgetIds = getWidgetIds(context);
+        if (appWidgetIds.length == 0) {
+            return;
+        }
+        AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
+        if (lastNotified == null || !quote.hasSameRates(lastNotified)) {
+            appWidgetManager.notifyAppWidgetViewDataChanged(appWidgetIds, R.id.board_list);
+        }
+        lastNotified = quote;
+
+        RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.rates_board_widget);
+        views.setTextViewText(R.id.board_updated_time, formatUpdatedTime(quote));
+        appWidgetManager.partiallyUpdateAppWidget(appWidgetIds, views);
+    }
+}
@@ -0,0 +1,109 @@
+package com.gcjewellers.rateswidget;
+
+import android.content.Context;
+import android.content.Intent;
+import android.widget.RemoteViews;
+import android.widget.RemoteViewsService;
+
+/**
+ * Supplies the rows of {@link RatesBoardWidgetProvider}'s list, one per instrument.
+ *
+ * Rows are built from the latest snapshot on {@link RatesSnapshotBus}, so refreshing the
+ * list never touches the network. Each row's id is its instrument, stable across
+ * snapshots, and a row whose texts did not change is handed back as the same RemoteViews
+ * it was built as before.
+ */
+public class RatesBoardWidgetService extends RemoteViewsService {
+
+    @Override
+    public RemoteViewsFactory onGetViewFactory(Intent intent) {
+        return new BoardFactory(getApplicationContext());
+    }
+
+    private static final class BoardFactory implements RemoteViewsFactory {
+        // Same order and names as the main screen
+        private static final int[] INSTRUMENTS = {
+                LiveQuote.GOLD, LiveQuote.SILVER_FUTURE, LiveQuote.GOLD_FUTURE, LiveQuote.GOLD_REFINE,
+                LiveQuote.GOLD_RTGS, LiveQuote.GOLD_DOLLAR, LiveQuote.SILVER_DOLLAR, LiveQuote.DOLLAR_INR
+        };
+        private static final String[] NAMES = {
+                "Gold 995", "Silver Futures", "Gold Futures", "Gold Refine",
+                "Gold RTGS", "Gold $", "Silver $", "Dollar $"
+        };
+
+        private final Context context;
+        private final RemoteViews[] rows = new RemoteViews[INSTRUMENTS.length];
+        private final String[] buyTexts = new String[INSTRUMENTS.length];
+        private final String[] sellTexts = new String[INSTRUMENTS.length];
+        private LiveQuote quote;
+
+        BoardFactory(Context context) {
+            this.context = context;
+        }
+
+        @Override
+        public void onCreate() {
+            // Rows are built on the first onDataSetChanged
+        }
+
+        @Override
+        public void onDataSetChanged() {
+            // Runs on a binder thread; the snapshot is in memory after the first read
+            quote = RatesSnapshotBus.getInstance(context).getLatest();
+            if (quote == null) {
+                return;
+            }
+            for (int position = 0; position < INSTRUMENTS.length; position++) {
+                String buy = quote.getBuyText(INSTRUMENTS[position]);
+                String sell = quote.getSellText(INSTRUMENTS[position]);
+                if (rows[position] != null && buy.equals(buyTexts[position]) && sell.equals(sellTexts[position])) {
+                    continue;
+                }
+                RemoteViews row = new RemoteViews(context.getPackageName(), R.layout.rates_board_row);
+                row.setTextViewText(R.id.board_row_name, NAMES[position]);
+                row.setTextViewText(R.id.board_row_buy, buy);
+                row.setTextViewText(R.id.board_row_sell, sell);
+                rows[position] = row;
+                buyTexts[position] = buy;
+                sellTexts[position] = sell;
+            }
+        }
+
+        @Override
+        public void onDestroy() {
+            quote = null;
+        }
+
+        @Override
+        public int getCount() {
+            // Nothing to list until a snapshot exists; the empty view shows instead
+            return quote == null ? 0 : INSTRUMENTS.length;
+        }
+
+        @Override
+        public RemoteViews getViewAt(int position) {
+            return rows[position];
+        }
+
+        @Override
+        public RemoteViews getLoadingView() {
+            // Default loading row
+            return null;
+        }
+
+        @Override
+        public int getViewTypeCount() {
+            return 1;
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return INSTRUMENTS[position];
+        }
+
+        @Override
+        public boolean hasStableIds() {
+            return true;
+        }
+    }
+}
@@ -2,6 +2,11 @@ package com.gcjewellers.rateswidget;
 
 import java.io.Serializable;
 
+/**
+ * @deprecated Superseded by {@link LiveQuote}, which carries every instrument as parsed
+ * values alongside its display text.
+ */
+@Deprecated
 public class RatesData implements Serializable {
     private String goldRate;
     private String silverRate;
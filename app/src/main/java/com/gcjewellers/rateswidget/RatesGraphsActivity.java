@@ -8,6 +8,7 @@ import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
+import android.view.MotionEvent;
 import android.view.View;
 import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
@@ -28,33 +29,29 @@ import com.github.mikephil.charting.data.LineData;
 import com.github.mikephil.charting.data.LineDataSet;
 import com.github.mikephil.charting.formatter.ValueFormatter;
 import com.github.mikephil.charting.highlight.Highlight;
+import com.github.mikephil.charting.listener.ChartTouchListener;
+import com.github.mikephil.charting.listener.OnChartGestureListener;
 import com.github.mikephil.charting.utils.MPPointF;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.button.MaterialButtonToggleGroup;
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonParser;
-import com.google.gson.reflect.TypeToken;
-
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.lang.reflect.Type;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.text.ParseException;
+
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
-import java.util.TimeZone;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 public class RatesGraphsActivity extends AppCompatActivity {
 
     private static final String TAG = "RatesGraphsActivity";
+    // Downsampling targets for the chart
+    private static final int DEFAULT_POINT_COUNT = 500;
+    private static final int MAX_DETAILED_POINTS = 60;
+    // Coarsest rollup giving at least this many bars is plotted instead of raw ticks
+    private static final int MIN_CHART_POINTS = 300;
     // UI Components
     private Spinner spinnerSeries;
     private MaterialButtonToggleGroup toggleBuySell;
@@ -66,10 +63,20 @@ public class RatesGraphsActivity extends AppCompatActivity {
     private MaterialButtonToggleGroup toggleTimeRange;
     private MaterialButton buttonDay, buttonWeek, buttonMonth, buttonYear, buttonCustom;
 
-    // Data from API
-    private ApiResponse apiResponse;
-    // List to hold Date objects corresponding to each DataItem's createdAt field.
-    private final List<Date> dataPointDates = new ArrayList<>();
+    // Local tick store, the window loaded from it and the series currently plotted
+    private RatesTickStore tickStore;
+    private HistorySeries history;
+    private HistorySeries.Series series;
+    // Bumped on every load so results of superseded loads are dropped
+    private int loadGeneration = 0;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Plotted data set and the whole-series sample it is built from
+    private LineDataSet dataSet;
+    private int[] overviewIndices;
+    // Points plotted at their bucket's high and low instead of its close
+    private int highIndex = -1;
+    private int lowIndex = -1;
 
     // Series options
     private final String[] seriesOptions = {
@@ -80,9 +87,6 @@ public class RatesGraphsActivity extends AppCompatActivity {
     private int selectedSeriesIndex = 0;
     private boolean isBuySelected = true; // true = Buy, false = Sell
 
-    // For parsing ISO8601 date coming from API (assumed UTC)
-    private final SimpleDateFormat isoFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.getDefault());
-
     // Time range options
     private enum TimeRange {
         ONE_DAY, ONE_WEEK, ONE_MONTH, ONE_YEAR, CUSTOM
@@ -97,7 +101,7 @@ public class RatesGraphsActivity extends AppCompatActivity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_rates_graphs);
-        isoFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        tickStore = RatesTickStore.getInstance(this);
 
         initializeViews();
         setupSpinner();
@@ -107,11 +111,18 @@ public class RatesGraphsActivity extends AppCompatActivity {
 
         // Set our custom marker view
         lineChart.setMarker(new CustomMarkerView(this));
+        lineChart.setOnChartGestureListener(new ViewportGestureListener());
 
         // Fetch API data using our modern asynchronous approach.
         fetchRatesData();
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        executor.shutdownNow();
+    }
+
     private void setupChart() {
         // ... existing chart config ...
         int axisTextColor = isDarkThemeActive() ? Color.WHITE : Color.BLACK;
@@ -183,7 +194,7 @@ public class RatesGraphsActivity extends AppCompatActivity {
             @Override
             public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
                 selectedSeriesIndex = position;
-                updateUI();
+                reloadSeries();
             }
             @Override
             public void onNothingSelected(AdapterView<?> parent) { }
@@ -195,7 +206,7 @@ public class RatesGraphsActivity extends AppCompatActivity {
         toggleBuySell.addOnButtonCheckedListener((group, checkedId, isChecked) -> {
             if (isChecked) {
                 isBuySelected = (checkedId == R.id.button_buy);
-                updateUI();
+                reloadSeries();
             }
         });
     }
@@ -273,247 +284,190 @@ public class RatesGraphsActivity extends AppCompatActivity {
     }
 
     /**
-     * Builds the API URL using preset or custom date ranges.
+     * Returns the {@code [from, to]} window in epoch millis for the selected time range.
      */
-    private String getApiUrl() {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        String startDate;
-        String endDate;
-
+    private long[] getRangeBounds() {
         if (selectedTimeRange == TimeRange.CUSTOM && customStartDate != null && customEndDate != null) {
-            startDate = sdf.format(customStartDate);
-            endDate = sdf.format(customEndDate);
-        } else {
-            Calendar calendar = Calendar.getInstance();
-            // End date is set to today's date.
-            endDate = sdf.format(calendar.getTime());
-            switch (selectedTimeRange) {
-                case ONE_DAY:
-                    calendar.add(Calendar.DATE, -1);
-                    break;
-                case ONE_WEEK:
-                    calendar.add(Calendar.DATE, -7);
-                    break;
-                case ONE_MONTH:
-                    calendar.add(Calendar.MONTH, -1);
-                    break;
-                case ONE_YEAR:
-                    calendar.add(Calendar.DATE, -365);
-                    break;
-                default:
-                    calendar.add(Calendar.DATE, -7);
-                    break;
-            }
-            startDate = sdf.format(calendar.getTime());
+            return new long[]{customStartDate.getTime(), customEndDate.getTime()};
+        }
+        Calendar calendar = Calendar.getInstance();
+        long to = calendar.getTimeInMillis();
+        switch (selectedTimeRange) {
+            case ONE_DAY:
+                calendar.add(Calendar.DATE, -1);
+                break;
+            case ONE_WEEK:
+                calendar.add(Calendar.DATE, -7);
+                break;
+            case ONE_MONTH:
+                calendar.add(Calendar.MONTH, -1);
+                break;
+            case ONE_YEAR:
+                calendar.add(Calendar.DATE, -365);
+                break;
+            default:
+                calendar.add(Calendar.DATE, -7);
+                break;
         }
-        return "https://goldrate.divyanshbansal.com/api/rates?startDate=" + startDate + "&endDate=" + endDate;
+        return new long[]{calendar.getTimeInMillis(), to};
     }
 
     /**
-     * Uses ExecutorService with a Handler to fetch API data asynchronously.
+     * Brings the local store up to date for the selected range, then plots it.
      */
     private void fetchRatesData() {
-        String apiUrl = getApiUrl();
-        Log.d(TAG, "API being hit: " + apiUrl);
-
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
-        Handler mainHandler = new Handler(Looper.getMainLooper());
-
-        executorService.execute(() -> {
-            ApiResponse response = fetchRatesFromUrl(apiUrl);
-            mainHandler.post(() -> {
-                if (response == null || response.getData() == null || response.getData().isEmpty()) {
-                    Log.e(TAG, "No data received from API or data empty");
-                    return;
-                }
-                apiResponse = response;
-                updateUI();
-            });
+        long[] range = getRangeBounds();
+        int instrument = selectedSeriesIndex;
+        int generation = ++loadGeneration;
+        executor.execute(() -> {
+            RatesHistorySync.sync(this, instrument, range[0], range[1]);
+            loadHistory(generation, range);
         });
     }
 
     /**
-     * Helper method to perform the network operation.
+     * Re-plots the selected series from the loaded window; no I/O or parsing.
+     */
+    private void reloadSeries() {
+        if (history == null) {
+            return;
+        }
+        series = history.select(selectedSeriesIndex, isBuySelected);
+        updateUI();
+    }
+
+    /**
+     * Decodes the whole window for every instrument into columnar arrays, from rollups when
+     * the range is long enough, and hands it to the UI thread unless a newer load has been
+     * requested meanwhile. Runs on the executor.
      */
-    private ApiResponse fetchRatesFromUrl(String apiUrl) {
-        HttpURLConnection connection = null;
+    private void loadHistory(int generation, long[] range) {
+        HistorySeries loaded;
         try {
-            URL url = new URL(apiUrl);
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setConnectTimeout(10000);
-            connection.setReadTimeout(10000);
-            int responseCode = connection.getResponseCode();
-            Log.d(TAG, "Response Code: " + responseCode);
-            if (responseCode == HttpURLConnection.HTTP_OK) {
-                BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-                StringBuilder response = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    response.append(line);
-                }
-                reader.close();
-                String responseStr = response.toString();
-                Log.d(TAG, "Full Response: " + responseStr);
-                Gson gson = new Gson();
-                Type responseType = new TypeToken<ApiResponse>() {}.getType();
-                return gson.fromJson(responseStr, responseType);
-            } else {
-                Log.e(TAG, "HTTP error code: " + responseCode);
-            }
+            int resolution = RatesTickStore.chooseResolution(range[0], range[1], MIN_CHART_POINTS);
+            loaded = resolution == RatesTickStore.RESOLUTION_RAW
+                    ? tickStore.loadHistory(range[0], range[1])
+                    : tickStore.loadRollups(resolution, range[0], range[1]);
         } catch (Exception e) {
-            Log.e(TAG, "Error fetching rates", e);
-        } finally {
-            if (connection != null)
-                connection.disconnect();
+            Log.e(TAG, "Error reading rates", e);
+            return;
         }
-        return null;
+        mainHandler.post(() -> {
+            if (generation != loadGeneration || isFinishing()) {
+                return;
+            }
+            if (loaded.size() == 0) {
+                Log.e(TAG, "No data available for selected range");
+            }
+            history = loaded;
+            reloadSeries();
+        });
     }
 
     private void updateUI() {
-        if (apiResponse == null)
+        if (series == null)
             return;
         updateChartWithData();
         updateHighLowText();
     }
 
     /**
-     * Filters API data based on the selected time range and updates the chart.
+     * Plots the loaded series on the chart, downsampled to the chart width.
      */
     private void updateChartWithData() {
-        dataPointDates.clear();
-        List<Entry> entries = new ArrayList<>();
-
-        if (apiResponse == null || apiResponse.getData() == null || apiResponse.getData().isEmpty())
-            return;
+        // Coarse sampling of the whole series, reused for everything outside the viewport
+        overviewIndices = SeriesDownsampler.sample(series.values, series.highs, series.lows,
+                0, series.size - 1, targetPointCount());
+        markExtremes(0, series.size - 1);
 
-        List<Date> allDates = new ArrayList<>();
-        for (ApiResponse.DataItem item : apiResponse.getData()) {
-            try {
-                Date d = isoFormat.parse(item.getCreatedAt());
-                allDates.add(d);
-            } catch (ParseException e) {
-                allDates.add(new Date());
-                Log.e(TAG, "Error parsing createdAt", e);
-            }
-        }
-
-        Calendar windowStart = Calendar.getInstance();
-        if (selectedTimeRange == TimeRange.ONE_DAY) {
-            windowStart.add(Calendar.DATE, -1);
-        } else if (selectedTimeRange == TimeRange.ONE_WEEK) {
-            windowStart.add(Calendar.DATE, -7);
-        } else if (selectedTimeRange == TimeRange.ONE_MONTH) {
-            windowStart.add(Calendar.MONTH, -1);
-        } else if (selectedTimeRange == TimeRange.ONE_YEAR) {
-            windowStart.add(Calendar.DATE, -365);
-        }
-
-        int xIndex = 0;
-        int i = 0;
-        for (Date currentDate : allDates) {
-            boolean include = false;
-            if (selectedTimeRange == TimeRange.CUSTOM) {
-                if (customStartDate != null && customEndDate != null &&
-                        !currentDate.before(customStartDate) && !currentDate.after(customEndDate)) {
-                    include = true;
-                }
-            } else {
-                if (currentDate.getTime() >= windowStart.getTimeInMillis()) {
-                    include = true;
-                }
-            }
-            if (include) {
-                dataPointDates.add(currentDate);
-                try {
-                    ApiResponse.DataItem item = apiResponse.getData().get(i);
-                    JsonArray outerArray = JsonParser.parseString(item.getData()).getAsJsonArray();
-                    JsonArray seriesRow = outerArray.get(selectedSeriesIndex).getAsJsonArray();
-                    String valueStr = isBuySelected ? seriesRow.get(0).getAsString() : seriesRow.get(1).getAsString();
-                    float value = Float.parseFloat(valueStr);
-                    entries.add(new Entry(xIndex, value));
-                    xIndex++;
-                } catch (Exception e) {
-                    Log.e(TAG, "Error parsing data at index " + i, e);
-                }
-            }
-            i++;
-        }
-
-        LineDataSet dataSet = new LineDataSet(entries, "Rates");
+        dataSet = new LineDataSet(buildEntries(overviewIndices), "Rates");
         // Set colors using ContextCompat.
         dataSet.setColor(ContextCompat.getColor(this, R.color.green)); // Replace with your color
         dataSet.setLineWidth(2f);
-        dataSet.setDrawCircles(true);
         dataSet.setCircleColor(ContextCompat.getColor(this, R.color.green));
         dataSet.setCircleRadius(3f);
         dataSet.setDrawValues(false);
-        dataSet.setMode(LineDataSet.Mode.CUBIC_BEZIER);
         dataSet.setDrawFilled(true);
         dataSet.setGradientColor(
                 ContextCompat.getColor(this, R.color.light_blue),
                 ContextCompat.getColor(this, R.color.dark_blue));
         dataSet.setFillAlpha(200);
+        applyPointStyle();
 
         LineData lineData = new LineData(dataSet);
         lineChart.setData(lineData);
         lineChart.getXAxis().setValueFormatter(new DateTimeValueFormatter());
+        if (lineChart.getViewPortHandler().getScaleX() > 1f) {
+            // Still zoomed in from the previous series
+            resampleForViewport();
+        }
         lineChart.invalidate();
     }
 
     /**
-     * Updates the High and Low TextViews based on the selected series and Buy/Sell toggle.
+     * Re-samples the visible window at full chart resolution after a zoom or pan, keeping
+     * the coarse overview outside it so the line stays continuous while panning.
      */
-    private void updateHighLowText() {
-        if (apiResponse.getStats() == null) {
-            textLow.setText("Lowest: N/A");
-            textHigh.setText("Highest: N/A");
+    private void resampleForViewport() {
+        if (series == null || dataSet == null || series.size == 0) {
             return;
         }
-        ApiResponse.Price price;
-        switch (selectedSeriesIndex) {
-            case 0:
-                price = isBuySelected ? apiResponse.getStats().getGolddollar().getBuy()
-                        : apiResponse.getStats().getGolddollar().getSell();
-                break;
-            case 1:
-                price = isBuySelected ? apiResponse.getStats().getSilverdollar().getBuy()
-                        : apiResponse.getStats().getSilverdollar().getSell();
-                break;
-            case 2:
-                price = isBuySelected ? apiResponse.getStats().getDollarinr().getBuy()
-                        : apiResponse.getStats().getDollarinr().getSell();
-                break;
-            case 3:
-                price = isBuySelected ? apiResponse.getStats().getGoldfuture().getBuy()
-                        : apiResponse.getStats().getGoldfuture().getSell();
-                break;
-            case 4:
-                price = isBuySelected ? apiResponse.getStats().getSilverfuture().getBuy()
-                        : apiResponse.getStats().getSilverfuture().getSell();
-                break;
-            case 5:
-                price = isBuySelected ? apiResponse.getStats().getGold().getBuy()
-                        : apiResponse.getStats().getGold().getSell();
-                break;
-            case 6:
-                price = isBuySelected ? apiResponse.getStats().getGoldrefine().getBuy()
-                        : apiResponse.getStats().getGoldrefine().getSell();
-                break;
-            case 7:
-                price = isBuySelected ? apiResponse.getStats().getGoldrtgs().getBuy()
-                        : apiResponse.getStats().getGoldrtgs().getSell();
-                break;
-            default:
-                price = null;
-                break;
+        int from = Math.max(0, (int) Math.floor(lineChart.getLowestVisibleX()));
+        int to = Math.min(series.size - 1, (int) Math.ceil(lineChart.getHighestVisibleX()));
+        int[] visible = SeriesDownsampler.sample(series.values, series.highs, series.lows,
+                from, to, targetPointCount());
+        markExtremes(from, to);
+        dataSet.setValues(buildEntries(SeriesDownsampler.merge(overviewIndices, visible)));
+        applyPointStyle();
+        lineChart.getData().notifyDataChanged();
+        lineChart.notifyDataSetChanged();
+        lineChart.invalidate();
+    }
+
+    private List<Entry> buildEntries(int[] indices) {
+        // x stays the index in the full series so axis labels and markers resolve directly
+        List<Entry> entries = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            float value = index == highIndex ? series.highs[index]
+                    : index == lowIndex ? series.lows[index]
+                    : series.values[index];
+            entries.add(new Entry(index, value));
         }
-        if (price != null) {
-            textLow.setText(String.format(Locale.getDefault(), "Lowest: ₹%.2f", price.getLow()));
-            textHigh.setText(String.format(Locale.getDefault(), "Highest: ₹%.2f", price.getHigh()));
-        } else {
+        return entries;
+    }
+
+    private void markExtremes(int from, int to) {
+        // A rollup bucket's close hides the extremes within it, so those two points show them
+        highIndex = SeriesDownsampler.indexOfHighest(series.highs, from, to);
+        lowIndex = SeriesDownsampler.indexOfLowest(series.lows, from, to);
+    }
+
+    private void applyPointStyle() {
+        // Circles and bezier smoothing only pay off when points are far apart
+        boolean sparse = dataSet.getEntryCount() <= MAX_DETAILED_POINTS;
+        dataSet.setDrawCircles(sparse);
+        dataSet.setMode(sparse ? LineDataSet.Mode.CUBIC_BEZIER : LineDataSet.Mode.LINEAR);
+    }
+
+    private int targetPointCount() {
+        // About one point per horizontal pixel
+        int width = (int) lineChart.getViewPortHandler().contentWidth();
+        return width > 0 ? width : DEFAULT_POINT_COUNT;
+    }
+
+    /**
+     * Updates the High and Low TextViews from the extremes gathered at load time, which
+     * include the highs and lows inside rollup buckets.
+     */
+    private void updateHighLowText() {
+        double highest = history.getHighest(selectedSeriesIndex, isBuySelected);
+        double lowest = history.getLowest(selectedSeriesIndex, isBuySelected);
+        if (Double.isNaN(highest) || Double.isNaN(lowest)) {
             textLow.setText("Lowest: N/A");
             textHigh.setText("Highest: N/A");
+        } else {
+            textLow.setText(String.format(Locale.getDefault(), "Lowest: ₹%.2f", lowest));
+            textHigh.setText(String.format(Locale.getDefault(), "Highest: ₹%.2f", highest));
         }
         // Update text colors based on the current theme.
         int textColor = isDarkThemeActive() ? Color.WHITE : Color.BLACK;
@@ -532,14 +486,48 @@ public class RatesGraphsActivity extends AppCompatActivity {
         @Override
         public String getAxisLabel(float value, AxisBase axis) {
             int index = (int) value;
-            if (index < 0 || index >= dataPointDates.size())
+            if (series == null || index < 0 || index >= series.size)
                 return "";
-            Date d = dataPointDates.get(index);
+            Date d = new Date(series.timestamps[index]);
             float scaleX = lineChart.getViewPortHandler().getScaleX();
             return scaleX > zoomThreshold ? timeFormat.format(d) : dateFormat.format(d);
         }
     }
 
+    /**
+     * Picks a new sampling resolution once a zoom or pan settles.
+     */
+    private class ViewportGestureListener implements OnChartGestureListener {
+        @Override
+        public void onChartGestureEnd(MotionEvent me, ChartTouchListener.ChartGesture lastPerformedGesture) {
+            if (lastPerformedGesture == ChartTouchListener.ChartGesture.DRAG
+                    || lastPerformedGesture == ChartTouchListener.ChartGesture.X_ZOOM
+                    || lastPerformedGesture == ChartTouchListener.ChartGesture.PINCH_ZOOM
+                    || lastPerformedGesture == ChartTouchListener.ChartGesture.FLING) {
+                resampleForViewport();
+            }
+        }
+
+        @Override
+        public void onChartDoubleTapped(MotionEvent me) {
+            // The zoom is applied after this callback returns
+            lineChart.post(RatesGraphsActivity.this::resampleForViewport);
+        }
+
+        @Override
+        public void onChartGestureStart(MotionEvent me, ChartTouchListener.ChartGesture lastPerformedGesture) { }
+        @Override
+        public void onChartLongPressed(MotionEvent me) { }
+        @Override
+        public void onChartSingleTapped(MotionEvent me) { }
+        @Override
+        public void onChartFling(MotionEvent me1, MotionEvent me2, float velocityX, float velocityY) { }
+        @Override
+        public void onChartScale(MotionEvent me, float scaleX, float scaleY) { }
+        @Override
+        public void onChartTranslate(MotionEvent me, float dX, float dY) { }
+    }
+
     /**
      * Custom MarkerView to display details when a data point is tapped.
      */
@@ -560,8 +548,8 @@ public class RatesGraphsActivity extends AppCompatActivity {
         public void refreshContent(Entry e, Highlight highlight) {
             int index = (int) e.getX();
             String dateStr = "";
-            if (index >= 0 && index < dataPointDates.size()) {
-                dateStr = markerFormat.format(dataPointDates.get(index));
+            if (series != null && index >= 0 && index < series.size) {
+                dateStr = markerFormat.format(new Date(series.timestamps[index]));
             }
             tvContent.setText("Rate: " + e.getY() + "\n" + dateStr);
             super.refreshContent(e, highlight);
@@ -580,87 +568,4 @@ public class RatesGraphsActivity extends AppCompatActivity {
         int currentNightMode = getResources().getConfiguration().uiMode & Configuration.UI_MODE_NIGHT_MASK;
         return currentNightMode == Configuration.UI_MODE_NIGHT_YES;
     }
-
-    // Model classes for JSON parsing
-    public static class ApiResponse {
-        private List<DataItem> data;
-        private Stats stats;
-
-        public List<DataItem> getData() {
-            return data;
-        }
-        public Stats getStats() {
-            return stats;
-        }
-
-        public static class DataItem {
-            private String data;    // JSON string representing an array of arrays
-            private String createdAt; // ISO date string
-
-            public String getData() {
-                return data;
-            }
-            public String getCreatedAt() {
-                return createdAt;
-            }
-        }
-
-        public static class Stats {
-            private RateInfo golddollar;
-            private RateInfo silverdollar;
-            private RateInfo dollarinr;
-            private RateInfo goldfuture;
-            private RateInfo silverfuture;
-            private RateInfo gold;
-            private RateInfo goldrefine;
-            private RateInfo goldrtgs;
-
-            public RateInfo getGolddollar() {
-                return golddollar;
-            }
-            public RateInfo getSilverdollar() {
-                return silverdollar;
-            }
-            public RateInfo getDollarinr() {
-                return dollarinr;
-            }
-            public RateInfo getGoldfuture() {
-                return goldfuture;
-            }
-            public RateInfo getSilverfuture() {
-                return silverfuture;
-            }
-            public RateInfo getGold() {
-                return gold;
-            }
-            public RateInfo getGoldrefine() {
-                return goldrefine;
-            }
-            public RateInfo getGoldrtgs() {
-                return goldrtgs;
-            }
-        }
-
-        public static class RateInfo {
-            private Price buy;
-            private Price sell;
-            public Price getBuy() {
-                return buy;
-            }
-            public Price getSell() {
-                return sell;
-            }
-        }
-
-        public static class Price {
-            private float high;
-            private float low;
-            public float getHigh() {
-                return high;
-            }
-            public float getLow() {
-                return low;
-            }
-        }
-    }
 }
@@ -0,0 +1,213 @@
+package com.gcjewellers.rateswidget;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Downloads /api/rates history into {@link RatesTickStore}, requesting only the gaps
+ * between ranges already held locally. Blocking; call off the main thread.
+ *
+ * The API serves whole days in India time, so each gap is widened to IST day boundaries
+ * and the widened range is what gets marked as synced. Only completed days are marked;
+ * the current day is still growing and is downloaded again at most once per
+ * {@link #OPEN_DAY_TTL_MS}.
+ */
+public final class RatesHistorySync {
+    private static final String TAG = "RatesHistorySync";
+    private static final String API_URL = "https://goldrate.divyanshbansal.com/api/rates";
+
+    // Missing stretches shorter than this are left to the live feed
+    private static final long MIN_GAP_MS = 60000;
+
+    private static final TimeZone IST = TimeZone.getTimeZone("Asia/Kolkata");
+    private static final long DAY_MS = 24 * 60 * 60 * 1000L;
+    // The open day is downloaded again only after this long
+    private static final long OPEN_DAY_TTL_MS = 10 * 60 * 1000L;
+
+    // When the open day was last downloaded, by any instrument's sync
+    private static volatile long openDayFetchedAt;
+
+    private RatesHistorySync() {}
+
+    /**
+     * Downloads only the gaps of {@code [from, to]} not already held locally for the
+     * instrument, one request per gap, merging each into the store as it arrives.
+     *
+     * @return false if a request failed, leaving part of the range missing
+     */
+    public static boolean sync(Context context, int instrument, long from, long to) {
+        RatesTickStore tickStore = RatesTickStore.getInstance(context);
+        long now = System.currentTimeMillis();
+        long todayStart = startOfIstDay(now);
+        long[] days = toIstDays(tickStore.findGaps(instrument, from, to, MIN_GAP_MS));
+        if (days.length == 0) {
+            Log.d(TAG, "Range served from local store");
+            return true;
+        }
+        for (int i = 0; i < days.length; i += 2) {
+            long start = days[i];
+            long end = days[i + 1];
+            // Only the open day is missing, and it was downloaded moments ago
+            if (start >= todayStart && now - openDayFetchedAt < OPEN_DAY_TTL_MS) {
+                Log.d(TAG, "Open day downloaded recently, skipping");
+                continue;
+            }
+            String apiUrl = getApiUrl(start, end);
+            Log.d(TAG, "API being hit: " + apiUrl);
+            ApiResponse response = fetchRatesFromUrl(context, apiUrl);
+            if (response == null || response.getData() == null) {
+                Log.e(TAG, "No data received from API");
+                return false;
+            }
+            try {
+                storeHistory(tickStore, response.getData());
+                // Completed days are final; the open day stays a gap for the next sync
+                if (start < todayStart) {
+                    tickStore.markHistorySynced(start, Math.min(end, todayStart));
+                }
+                if (end > todayStart) {
+                    openDayFetchedAt = now;
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error storing history", e);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Widens gaps to whole IST days, {@code [first day start, last day end)}, merging
+     * gaps that land on the same or adjacent days.
+     */
+    private static long[] toIstDays(long[] gaps) {
+        long[] days = new long[gaps.length];
+        int size = 0;
+        for (int i = 0; i < gaps.length; i += 2) {
+            long start = startOfIstDay(gaps[i]);
+            // A gap ending exactly at midnight does not reach into the next day
+            long end = startOfIstDay(Math.max(gaps[i], gaps[i + 1] - 1)) + DAY_MS;
+            if (size > 0 && start <= days[size - 1]) {
+                days[size - 1] = Math.max(days[size - 1], end);
+            } else {
+                days[size++] = start;
+                days[size++] = end;
+            }
+        }
+        return Arrays.copyOf(days, size);
+    }
+
+    private static long startOfIstDay(long time) {
+        Calendar calendar = Calendar.getInstance(IST, Locale.US);
+        calendar.setTimeInMillis(time);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    /**
+     * Builds the API URL for the IST days spanning {@code [start, end)}.
+     */
+    private static String getApiUrl(long start, long end) {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        sdf.setTimeZone(IST);
+        String startDate = sdf.format(new Date(start));
+        String endDate = sdf.format(new Date(end - 1));
+        return API_URL + "?startDate=" + startDate + "&endDate=" + endDate;
+    }
+
+    private static ApiResponse fetchRatesFromUrl(Context context, String apiUrl) {
+        Request request = new Request.Builder().url(apiUrl).get().build();
+        try (Response response = RatesHttpClient.get(context).newCall(request).execute()) {
+            int responseCode = response.code();
+            Log.d(TAG, "Response Code: " + responseCode);
+            if (response.isSuccessful() && response.body() != null) {
+                return new Gson().fromJson(response.body().charStream(), ApiResponse.class);
+            } else {
+                Log.e(TAG, "HTTP error code: " + responseCode);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error fetching rates", e);
+        }
+        return null;
+    }
+
+    /**
+     * Decodes history rows into per-instrument buy/sell ticks and writes them to the store.
+     */
+    private static void storeHistory(RatesTickStore tickStore, List<ApiResponse.DataItem> items) {
+        // For parsing ISO8601 date coming from API (assumed UTC)
+        SimpleDateFormat isoFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+        isoFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        int count = items.size();
+        long[] timestamps = new long[count];
+        double[] buy = new double[count * LiveQuote.INSTRUMENT_COUNT];
+        double[] sell = new double[count * LiveQuote.INSTRUMENT_COUNT];
+        Arrays.fill(buy, Double.NaN);
+        Arrays.fill(sell, Double.NaN);
+
+        int rows = 0;
+        for (ApiResponse.DataItem item : items) {
+            try {
+                timestamps[rows] = isoFormat.parse(item.getCreatedAt()).getTime();
+                JsonArray outerArray = JsonParser.parseString(item.getData()).getAsJsonArray();
+                int instruments = Math.min(outerArray.size(), LiveQuote.INSTRUMENT_COUNT);
+                for (int instrument = 0; instrument < instruments; instrument++) {
+                    JsonArray seriesRow = outerArray.get(instrument).getAsJsonArray();
+                    int slot = rows * LiveQuote.INSTRUMENT_COUNT + instrument;
+                    buy[slot] = LiveQuoteParser.parseRate(seriesRow.get(0).getAsString());
+                    sell[slot] = LiveQuoteParser.parseRate(seriesRow.get(1).getAsString());
+                }
+                rows++;
+            } catch (Exception e) {
+                Log.e(TAG, "Error parsing history row " + item.getCreatedAt(), e);
+                int rowStart = rows * LiveQuote.INSTRUMENT_COUNT;
+                Arrays.fill(buy, rowStart, rowStart + LiveQuote.INSTRUMENT_COUNT, Double.NaN);
+                Arrays.fill(sell, rowStart, rowStart + LiveQuote.INSTRUMENT_COUNT, Double.NaN);
+            }
+        }
+        tickStore.insertSnapshots(Arrays.copyOf(timestamps, rows),
+                Arrays.copyOf(buy, rows * LiveQuote.INSTRUMENT_COUNT),
+                Arrays.copyOf(sell, rows * LiveQuote.INSTRUMENT_COUNT));
+        Log.d(TAG, "Stored " + rows + " history rows");
+    }
+
+    // Model classes for JSON parsing
+    static class ApiResponse {
+        private List<DataItem> data;
+
+        public List<DataItem> getData() {
+            return data;
+        }
+
+        static class DataItem {
+            private String data;    // JSON string representing an array of arrays
+            private String createdAt; // ISO date string
+
+            public String getData() {
+                return data;
+            }
+            public String getCreatedAt() {
+                return createdAt;
+            }
+        }
+    }
+}
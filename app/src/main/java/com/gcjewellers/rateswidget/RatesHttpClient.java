@@ -0,0 +1,61 @@
+package com.gcjewellers.rateswidget;
+
+import android.content.Context;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * Holds the app's single OkHttp client so every request shares one connection pool,
+ * keeping TLS sessions to the rates server alive between polls.
+ *
+ * OkHttp negotiates HTTP/2 over ALPN and handles gzip transparently. Once a context is
+ * available the client also gets a disk response cache; clients derived through
+ * {@link OkHttpClient#newBuilder()} keep sharing the same pool and dispatcher.
+ */
+public final class RatesHttpClient {
+    private static final long CACHE_SIZE_BYTES = 10L * 1024 * 1024;
+
+    private static final OkHttpClient BASE = new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(5, 5, TimeUnit.MINUTES))
+            .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .connectTimeout(10, TimeUnit.SECONDS)
+            .readTimeout(10, TimeUnit.SECONDS)
+            .writeTimeout(10, TimeUnit.SECONDS)
+            .callTimeout(20, TimeUnit.SECONDS)
+            .retryOnConnectionFailure(true)
+            .build();
+
+    private static volatile OkHttpClient cachingClient;
+
+    private RatesHttpClient() {}
+
+    /**
+     * Returns the shared client, installing the disk cache the first time a context is
+     * supplied. A null context returns whichever client already exists.
+     */
+    public static OkHttpClient get(Context context) {
+        OkHttpClient client = cachingClient;
+        if (client != null) {
+            return client;
+        }
+        if (context == null) {
+            return BASE;
+        }
+        synchronized (RatesHttpClient.class) {
+            if (cachingClient == null) {
+                File cacheDir = new File(context.getApplicationContext().getCacheDir(), "http");
+                cachingClient = BASE.newBuilder()
+                        .cache(new Cache(cacheDir, CACHE_SIZE_BYTES))
+                        .build();
+            }
+            return cachingClient;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.gcjewellers.rateswidget;
+
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.core.app.NotificationCompat;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.ForegroundInfo;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.OutOfQuotaPolicy;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The one background refresh path: fetches the live rates through {@link LiveRatesClient}
+ * for the home screen widgets.
+ *
+ * Runs either as unique periodic work while widget auto-refresh is on, or as unique
+ * expedited one-shot work when the widget's refresh button is tapped. Periodic runs wait
+ * for a connection and retry with backoff; a tapped run starts at once, tries once and
+ * always answers, so an offline tap fails fast instead of leaving the spinner up. Unique
+ * names keep at most one of each queued, and because the fetch goes through the shared
+ * client, a periodic and a one-shot run that overlap share a single request. The widgets, tick store and alert engine receive a new snapshot
+ * through {@link RatesSnapshotBus}; the worker only tells the small widget when a
+ * refresh it is waiting on has finished or failed.
+ */
+public class RatesRefreshWorker extends Worker {
+    private static final String TAG = "RatesRefreshWorker";
+
+    private static final String UNIQUE_PERIODIC = "rates_refresh_periodic";
+    private static final String UNIQUE_ONE_SHOT = "rates_refresh_now";
+    private static final long REFRESH_INTERVAL_MINUTES = 15;
+    private static final long FETCH_TIMEOUT_SECONDS = 20;
+    private static final int MAX_ATTEMPTS = 3;
+
+    // Set on tap-initiated runs, which must always answer the widget's spinner
+    private static final String KEY_FORCE_BROADCAST = "forceBroadcast";
+
+    /**
+     * Extra on the finished broadcast: how long the fetch took, in milliseconds.
+     */
+    static final String EXTRA_FETCH_MILLIS = "fetchMillis";
+
+    /**
+     * Extra on the finished broadcast: version of the snapshot fetched, read from
+     * {@link RatesSnapshotBus}; absent when the fetch failed.
+     */
+    static final String EXTRA_SNAPSHOT_VERSION = "snapshotVersion";
+
+    private static final String PREFS_NAME = "WidgetPrefs";
+    private static final String KEY_LAST_REFRESH = "lastRefreshAt";
+
+    private static final String CHANNEL_ID = "rates_refresh";
+    private static final int NOTIFICATION_ID = 2001;
+
+    public RatesRefreshWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Keeps the widgets refreshed every 15 minutes while connected. Scheduling again
+     * while already scheduled is a no-op.
+     */
+    public static void schedulePeriodic(Context context) {
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                RatesRefreshWorker.class, REFRESH_INTERVAL_MINUTES, TimeUnit.MINUTES)
+                .setConstraints(networkConstraints())
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(
+                UNIQUE_PERIODIC, ExistingPeriodicWorkPolicy.KEEP, request);
+        Log.d(TAG, "Periodic refresh scheduled");
+    }
+
+    public static void cancelPeriodic(Context context) {
+        WorkManager.getInstance(context).cancelUniqueWork(UNIQUE_PERIODIC);
+        Log.d(TAG, "Periodic refresh cancelled");
+    }
+
+    /**
+     * Refreshes right away, expedited where quota allows, and reports back to the widget
+     * whether it worked. A new request replaces one still queued or running, so a tap
+     * is never swallowed by an earlier attempt.
+     */
+    public static void refreshNow(Context context) {
+        // No network constraint: offline, the fetch fails at once and the widget hears so
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(RatesRefreshWorker.class)
+                .setExpedited(OutOfQuotaPolicy.RUN_AS_NON_EXPEDITED_WORK_REQUEST)
+                .setInputData(new Data.Builder().putBoolean(KEY_FORCE_BROADCAST, true).build())
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(
+                UNIQUE_ONE_SHOT, ExistingWorkPolicy.REPLACE, request);
+    }
+
+    /**
+     * Wall-clock time of the last successful refresh, or 0 if there has been none.
+     */
+    static long getLastRefreshAt(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).getLong(KEY_LAST_REFRESH, 0);
+    }
+
+    private static Constraints networkConstraints() {
+        return new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        boolean force = getInputData().getBoolean(KEY_FORCE_BROADCAST, false);
+        AtomicReference<LiveQuote> result = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        long fetchStartedAt = SystemClock.elapsedRealtime();
+        LiveRatesClient.getInstance(context).fetch(new LiveRatesClient.Listener() {
+            @Override
+            public void onResult(LiveQuote quote) {
+                result.set(quote);
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                done.countDown();
+            }
+        });
+        try {
+            if (!done.await(FETCH_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                Log.e(TAG, "Timed out waiting for live rates");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return force ? Result.failure() : Result.retry();
+        }
+        long fetchMillis = SystemClock.elapsedRealtime() - fetchStartedAt;
+        Log.d(TAG, "Fetch finished in " + fetchMillis + "ms");
+
+        LiveQuote quote = result.get();
+        if (quote == null) {
+            // Periodic runs retry quietly and report only once they give up
+            if (!force && getRunAttemptCount() + 1 < MAX_ATTEMPTS) {
+                return Result.retry();
+            }
+            broadcastFinished(context, null, fetchMillis);
+            return Result.failure();
+        }
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                .putLong(KEY_LAST_REFRESH, System.currentTimeMillis())
+                .apply();
+
+        // The client publishes after answering callers; make sure the widget will find it
+        RatesSnapshotBus.getInstance(context).publish(quote);
+
+        // The bus draws any new rates; only a waiting spinner needs an answer
+        if (force) {
+            broadcastFinished(context, quote, fetchMillis);
+        }
+        return Result.success();
+    }
+
+    /**
+     * Tells the small widget a refresh finished, with {@code quote} null when it failed.
+     * The snapshot itself is not copied into the intent.
+     */
+    private static void broadcastFinished(Context context, LiveQuote quote, long fetchMillis) {
+        Intent intent = new Intent(context, RatesWidgetProvider.class);
+        intent.setAction(RatesWidgetProvider.ACTION_REFRESH_FINISHED);
+        intent.putExtra(EXTRA_FETCH_MILLIS, fetchMillis);
+        if (quote != null) {
+            intent.putExtra(EXTRA_SNAPSHOT_VERSION, quote.getVersion());
+        }
+        context.sendBroadcast(intent);
+        Log.d(TAG, quote != null ? "Refresh finished broadcast sent" : "Refresh failed broadcast sent");
+    }
+
+    /**
+     * Expedited runs before Android 12 execute as a short foreground service, which needs
+     * this notification.
+     */
+    @NonNull
+    @Override
+    public ForegroundInfo getForegroundInfo() {
+        Context context = getApplicationContext();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationManager manager = context.getSystemService(NotificationManager.class);
+            if (manager != null && manager.getNotificationChannel(CHANNEL_ID) == null) {
+                manager.createNotificationChannel(new NotificationChannel(CHANNEL_ID,
+                        "Rate refresh", NotificationManager.IMPORTANCE_MIN));
+            }
+        }
+        return new ForegroundInfo(NOTIFICATION_ID, new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_refresh)
+                .setContentTitle("Refreshing rates")
+                .setOngoing(true)
+                .setPriority(NotificationCompat.PRIORITY_MIN)
+                .build());
+    }
+}
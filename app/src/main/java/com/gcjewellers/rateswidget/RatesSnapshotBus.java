@@ -0,0 +1,111 @@
+package com.gcjewellers.rateswidget;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * In-process hand-off of the current {@link LiveQuote} to everything that shows or acts
+ * on it: the widgets, the open activities and the alert engine.
+ *
+ * The live client publishes each new snapshot here once; subscribers receive the same
+ * object, and anyone else reads {@link #getLatest()} instead of having rates copied to
+ * them in broadcast extras. Snapshots are versioned, and one no newer than the latest is
+ * dropped, so a subscriber never sees a snapshot twice or out of order. Publishing only
+ * swaps the latest snapshot; subscribers, some of which write to disk, run afterwards
+ * on the bus's own thread so the publisher never waits on them. Until something is
+ * published, the snapshot persisted by {@link LastQuoteCache} stands in as the latest.
+ */
+public final class RatesSnapshotBus {
+    private static final String TAG = "RatesSnapshotBus";
+
+    public interface Subscriber {
+        /**
+         * Called on the bus thread, in subscription order.
+         */
+        void onSnapshot(LiveQuote quote);
+    }
+
+    private static volatile RatesSnapshotBus instance;
+
+    private final LastQuoteCache quoteCache;
+    private final CopyOnWriteArrayList<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "snapshot-bus");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Latest published snapshot; null until the first publish
+    private volatile LiveQuote latest;
+
+    private RatesSnapshotBus(Context context) {
+        quoteCache = LastQuoteCache.getInstance(context);
+    }
+
+    public static RatesSnapshotBus getInstance(Context context) {
+        if (instance == null) {
+            synchronized (RatesSnapshotBus.class) {
+                if (instance == null) {
+                    instance = new RatesSnapshotBus(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    public void subscribe(Subscriber subscriber) {
+        subscribers.addIfAbsent(subscriber);
+    }
+
+    public void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * Makes {@code quote} the latest snapshot and queues it for every subscriber, unless a
+     * snapshot of the same or a newer version was already published. Returns at once.
+     */
+    public void publish(LiveQuote quote) {
+        synchronized (this) {
+            if (latest != null && quote.getVersion() <= latest.getVersion()) {
+                return;
+            }
+            latest = quote;
+            // Queued under the lock so deliveries keep version order
+            executor.execute(() -> deliver(quote));
+        }
+    }
+
+    private void deliver(LiveQuote quote) {
+        for (Subscriber subscriber : subscribers) {
+            try {
+                subscriber.onSnapshot(quote);
+            } catch (Exception e) {
+                Log.e(TAG, "Snapshot subscriber failed", e);
+            }
+        }
+    }
+
+    /**
+     * The latest snapshot, falling back to the persisted one before the first publish;
+     * null if there is neither. May read the disk once, so call off the main thread.
+     */
+    public LiveQuote getLatest() {
+        LiveQuote quote = latest;
+        return quote != null ? quote : quoteCache.read();
+    }
+
+    /**
+     * Like {@link #getLatest()}, but never touches the disk: before the first publish it
+     * returns the persisted snapshot only if that was already read, else null. For
+     * broadcast receivers and other main-thread callers.
+     */
+    public LiveQuote peekLatest() {
+        LiveQuote quote = latest;
+        return quote != null ? quote : quoteCache.peek();
+    }
+}
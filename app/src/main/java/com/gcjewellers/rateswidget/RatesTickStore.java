@@ -0,0 +1,397 @@
+package com.gcjewellers.rateswidget;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * On-device append-only store of rate ticks, keyed by instrument and timestamp.
+ *
+ * Rows come from two sources: every new {@link LiveQuote} published by
+ * {@link LiveRatesClient}, and /api/rates history pages downloaded by
+ * {@link RatesGraphsActivity}. The ranges of history that have been fully downloaded are
+ * tracked per instrument, so a request only has to cover the gaps between them; the end
+ * of the newest range is the instrument's high-water mark. Live ticks never count as
+ * synced history. Each write also folds its ticks into {@link TickRollups} so long ranges
+ * can be read as 1m/15m/1h/1d bars. All methods do disk I/O and must be called off the
+ * main thread.
+ */
+public final class RatesTickStore {
+    private static final String TAG = "RatesTickStore";
+    private static final String DATABASE_NAME = "rate_ticks.db";
+    private static final int DATABASE_VERSION = 1;
+
+    /**
+     * Returned by {@link #chooseResolution} when raw ticks should be plotted.
+     */
+    public static final int RESOLUTION_RAW = -1;
+
+    private static volatile RatesTickStore instance;
+
+    private final Helper helper;
+    // Bumped after every committed write that changed a row, so derived caches know when to recompute
+    private final AtomicLong dataVersion = new AtomicLong();
+
+    private RatesTickStore(Context context) {
+        helper = new Helper(context);
+    }
+
+    public static RatesTickStore getInstance(Context context) {
+        if (instance == null) {
+            synchronized (RatesTickStore.class) {
+                if (instance == null) {
+                    instance = new RatesTickStore(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Records every instrument of a live snapshot at its fetch time.
+     */
+    public void insertQuote(LiveQuote quote) {
+        long[] timestamps = {quote.getFetchedAt()};
+        double[] buy = new double[LiveQuote.INSTRUMENT_COUNT];
+        double[] sell = new double[LiveQuote.INSTRUMENT_COUNT];
+        for (int instrument = 0; instrument < LiveQuote.INSTRUMENT_COUNT; instrument++) {
+            buy[instrument] = quote.getBuy(instrument);
+            sell[instrument] = quote.getSell(instrument);
+        }
+        insertSnapshots(timestamps, buy, sell);
+    }
+
+    /**
+     * Writes one row per instrument for each timestamp in a single transaction. Rates are
+     * laid out as {@code [row * INSTRUMENT_COUNT + instrument]}; NaN is stored as missing.
+     * A tick already stored at the same instant is replaced if its rates differ and left
+     * alone otherwise, so downloading the same history again changes nothing. Rollups are
+     * updated in the same transaction: new ticks are merged in, and the days of replaced
+     * ticks are recomputed so the old rates leave no stale high or low behind.
+     */
+    public void insertSnapshots(long[] timestamps, double[] buy, double[] sell) {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        SQLiteStatement insert = db.compileStatement(
+                "INSERT OR IGNORE INTO ticks (instrument, ts, buy, sell) VALUES (?, ?, ?, ?)");
+        SQLiteStatement update = db.compileStatement("UPDATE ticks SET buy = ?3, sell = ?4"
+                + " WHERE instrument = ?1 AND ts = ?2 AND (buy IS NOT ?3 OR sell IS NOT ?4)");
+        TickRollups rollups = new TickRollups(db);
+        int changed = 0;
+        // IST days holding a replaced tick, keyed day start * INSTRUMENT_COUNT + instrument
+        Set<Long> replacedDays = new HashSet<>();
+        db.beginTransaction();
+        try {
+            for (int row = 0; row < timestamps.length; row++) {
+                for (int instrument = 0; instrument < LiveQuote.INSTRUMENT_COUNT; instrument++) {
+                    int slot = row * LiveQuote.INSTRUMENT_COUNT + instrument;
+                    if (Double.isNaN(buy[slot]) && Double.isNaN(sell[slot])) {
+                        continue;
+                    }
+                    if (writeTick(insert, instrument, timestamps[row], buy[slot], sell[slot])) {
+                        rollups.add(instrument, TickRollups.SIDE_BUY, timestamps[row], buy[slot]);
+                        rollups.add(instrument, TickRollups.SIDE_SELL, timestamps[row], sell[slot]);
+                    } else if (writeTick(update, instrument, timestamps[row], buy[slot], sell[slot])) {
+                        long day = TickRollups.bucketStart(timestamps[row], TickRollups.RESOLUTION_1D);
+                        replacedDays.add(day * LiveQuote.INSTRUMENT_COUNT + instrument);
+                    } else {
+                        // Already stored with these rates
+                        continue;
+                    }
+                    changed++;
+                }
+            }
+            for (long key : replacedDays) {
+                int instrument = (int) Math.floorMod(key, (long) LiveQuote.INSTRUMENT_COUNT);
+                rollups.rebuildDay(instrument, Math.floorDiv(key, (long) LiveQuote.INSTRUMENT_COUNT));
+            }
+            rollups.close();
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+            update.close();
+        }
+        if (changed > 0) {
+            dataVersion.incrementAndGet();
+        }
+    }
+
+    /**
+     * Runs the insert or update for one tick; true if it changed a row.
+     */
+    private static boolean writeTick(SQLiteStatement statement, int instrument, long timestamp,
+                                     double buy, double sell) {
+        statement.clearBindings();
+        statement.bindLong(1, instrument);
+        statement.bindLong(2, timestamp);
+        bindRate(statement, 3, buy);
+        bindRate(statement, 4, sell);
+        return statement.executeUpdateDelete() > 0;
+    }
+
+    /**
+     * Changes whenever a write has added or changed ticks since the last call.
+     */
+    public long getDataVersion() {
+        return dataVersion.get();
+    }
+
+    private static void bindRate(SQLiteStatement statement, int index, double value) {
+        if (Double.isNaN(value)) {
+            statement.bindNull(index);
+        } else {
+            statement.bindDouble(index, value);
+        }
+    }
+
+    /**
+     * Loads every instrument's ticks within {@code [from, to]} into columnar form, one
+     * primary-key range scan per instrument.
+     */
+    public HistorySeries loadHistory(long from, long to) {
+        SQLiteDatabase db = helper.getReadableDatabase();
+        long[][] timestamps = new long[LiveQuote.INSTRUMENT_COUNT][];
+        float[][] buy = new float[LiveQuote.INSTRUMENT_COUNT][];
+        float[][] sell = new float[LiveQuote.INSTRUMENT_COUNT][];
+        int[] counts = new int[LiveQuote.INSTRUMENT_COUNT];
+        for (int instrument = 0; instrument < LiveQuote.INSTRUMENT_COUNT; instrument++) {
+            try (Cursor cursor = db.rawQuery(
+                    "SELECT ts, buy, sell FROM ticks WHERE instrument = ? AND ts BETWEEN ? AND ? ORDER BY ts",
+                    new String[]{String.valueOf(instrument), String.valueOf(from), String.valueOf(to)})) {
+                int count = cursor.getCount();
+                timestamps[instrument] = new long[count];
+                buy[instrument] = new float[count];
+                sell[instrument] = new float[count];
+                int i = 0;
+                while (cursor.moveToNext() && i < count) {
+                    timestamps[instrument][i] = cursor.getLong(0);
+                    buy[instrument][i] = cursor.isNull(1) ? Float.NaN : (float) cursor.getDouble(1);
+                    sell[instrument][i] = cursor.isNull(2) ? Float.NaN : (float) cursor.getDouble(2);
+                    i++;
+                }
+                counts[instrument] = i;
+            }
+        }
+        return HistorySeries.align(timestamps, buy, sell, counts);
+    }
+
+    /**
+     * Picks the coarsest rollup resolution that still yields at least {@code minPoints}
+     * buckets over {@code [from, to]}, or {@link #RESOLUTION_RAW} when even one-minute
+     * buckets would be too few.
+     */
+    public static int chooseResolution(long from, long to, int minPoints) {
+        for (int resolution = TickRollups.RESOLUTION_COUNT - 1; resolution >= 0; resolution--) {
+            if ((to - from) / TickRollups.RESOLUTION_MS[resolution] >= minPoints) {
+                return resolution;
+            }
+        }
+        return RESOLUTION_RAW;
+    }
+
+    /**
+     * Loads the close, high and low of every bucket at {@code resolution} within
+     * {@code [from, to]} for every instrument, timestamped at the bucket start.
+     */
+    public HistorySeries loadRollups(int resolution, long from, long to) {
+        SQLiteDatabase db = helper.getReadableDatabase();
+        long first = TickRollups.bucketStart(from, resolution);
+        long[][] timestamps = new long[LiveQuote.INSTRUMENT_COUNT][];
+        float[][] buy = new float[LiveQuote.INSTRUMENT_COUNT][];
+        float[][] sell = new float[LiveQuote.INSTRUMENT_COUNT][];
+        float[][] buyHigh = new float[LiveQuote.INSTRUMENT_COUNT][];
+        float[][] buyLow = new float[LiveQuote.INSTRUMENT_COUNT][];
+        float[][] sellHigh = new float[LiveQuote.INSTRUMENT_COUNT][];
+        float[][] sellLow = new float[LiveQuote.INSTRUMENT_COUNT][];
+        int[] counts = new int[LiveQuote.INSTRUMENT_COUNT];
+        for (int instrument = 0; instrument < LiveQuote.INSTRUMENT_COUNT; instrument++) {
+            try (Cursor cursor = db.rawQuery("SELECT bucket, side, close, high, low FROM rollups"
+                            + " WHERE resolution = ? AND instrument = ? AND side IN (0, 1)"
+                            + " AND bucket BETWEEN ? AND ? ORDER BY bucket, side",
+                    new String[]{String.valueOf(resolution), String.valueOf(instrument),
+                            String.valueOf(first), String.valueOf(to)})) {
+                // At most two rows (buy, sell) per bucket
+                int capacity = cursor.getCount();
+                long[] buckets = new long[capacity];
+                float[] buyClose = new float[capacity];
+                float[] sellClose = new float[capacity];
+                float[] buyMax = new float[capacity];
+                float[] buyMin = new float[capacity];
+                float[] sellMax = new float[capacity];
+                float[] sellMin = new float[capacity];
+                int count = 0;
+                while (cursor.moveToNext()) {
+                    long bucket = cursor.getLong(0);
+                    if (count == 0 || buckets[count - 1] != bucket) {
+                        buckets[count] = bucket;
+                        buyClose[count] = sellClose[count] = Float.NaN;
+                        buyMax[count] = sellMax[count] = Float.NaN;
+                        buyMin[count] = sellMin[count] = Float.NaN;
+                        count++;
+                    }
+                    float close = (float) cursor.getDouble(2);
+                    float high = (float) cursor.getDouble(3);
+                    float low = (float) cursor.getDouble(4);
+                    if (cursor.getInt(1) == TickRollups.SIDE_BUY) {
+                        buyClose[count - 1] = close;
+                        buyMax[count - 1] = high;
+                        buyMin[count - 1] = low;
+                    } else {
+                        sellClose[count - 1] = close;
+                        sellMax[count - 1] = high;
+                        sellMin[count - 1] = low;
+                    }
+                }
+                timestamps[instrument] = buckets;
+                buy[instrument] = buyClose;
+                sell[instrument] = sellClose;
+                buyHigh[instrument] = buyMax;
+                buyLow[instrument] = buyMin;
+                sellHigh[instrument] = sellMax;
+                sellLow[instrument] = sellMin;
+                counts[instrument] = count;
+            }
+        }
+        return HistorySeries.align(timestamps, buy, sell, buyHigh, buyLow, sellHigh, sellLow, counts);
+    }
+
+    /**
+     * Returns the synced ranges of an instrument as ascending, non-overlapping
+     * {@code [start0, end0, start1, end1, ...]} pairs.
+     */
+    public long[] getSyncedRanges(int instrument) {
+        return readRanges(helper.getReadableDatabase(), instrument);
+    }
+
+    /**
+     * Returns the parts of {@code [from, to]} not yet downloaded for an instrument, as
+     * pairs like {@link #getSyncedRanges}. Gaps shorter than {@code minGapMs} are dropped.
+     */
+    public long[] findGaps(int instrument, long from, long to, long minGapMs) {
+        return gaps(getSyncedRanges(instrument), from, to, minGapMs);
+    }
+
+    /**
+     * Newest instant up to which history of an instrument is known to be complete, or -1.
+     */
+    public long getHighWaterMark(int instrument) {
+        try (Cursor cursor = helper.getReadableDatabase().rawQuery(
+                "SELECT MAX(end_ts) FROM synced_ranges WHERE instrument = ?",
+                new String[]{String.valueOf(instrument)})) {
+            return cursor.moveToFirst() && !cursor.isNull(0) ? cursor.getLong(0) : -1;
+        }
+    }
+
+    /**
+     * Records that history of every instrument within {@code [start, end]} has been
+     * downloaded, merging it with any range it overlaps or touches.
+     */
+    public void markHistorySynced(long start, long end) {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (int instrument = 0; instrument < LiveQuote.INSTRUMENT_COUNT; instrument++) {
+                markSynced(db, instrument, start, end);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        Log.d(TAG, "History synced for [" + start + ", " + end + "]");
+    }
+
+    private static void markSynced(SQLiteDatabase db, int instrument, long start, long end) {
+        String[] args = {String.valueOf(instrument), String.valueOf(end), String.valueOf(start)};
+        try (Cursor cursor = db.rawQuery("SELECT MIN(start_ts), MAX(end_ts) FROM synced_ranges"
+                + " WHERE instrument = ? AND start_ts <= ? AND end_ts >= ?", args)) {
+            if (cursor.moveToFirst() && !cursor.isNull(0)) {
+                start = Math.min(start, cursor.getLong(0));
+                end = Math.max(end, cursor.getLong(1));
+            }
+        }
+        db.execSQL("DELETE FROM synced_ranges WHERE instrument = ? AND start_ts <= ? AND end_ts >= ?",
+                new Object[]{instrument, end, start});
+        db.execSQL("INSERT INTO synced_ranges (instrument, start_ts, end_ts) VALUES (?, ?, ?)",
+                new Object[]{instrument, start, end});
+    }
+
+    private static long[] readRanges(SQLiteDatabase db, int instrument) {
+        try (Cursor cursor = db.rawQuery(
+                "SELECT start_ts, end_ts FROM synced_ranges WHERE instrument = ? ORDER BY start_ts",
+                new String[]{String.valueOf(instrument)})) {
+            long[] ranges = new long[cursor.getCount() * 2];
+            int i = 0;
+            while (cursor.moveToNext()) {
+                ranges[i++] = cursor.getLong(0);
+                ranges[i++] = cursor.getLong(1);
+            }
+            return ranges;
+        }
+    }
+
+    /**
+     * Subtracts sorted, non-overlapping {@code ranges} from {@code [from, to]}.
+     */
+    static long[] gaps(long[] ranges, long from, long to, long minGapMs) {
+        long minLength = Math.max(1, minGapMs);
+        long[] result = new long[ranges.length + 2];
+        int size = 0;
+        long cursor = from;
+        for (int i = 0; i < ranges.length && cursor < to; i += 2) {
+            long start = ranges[i];
+            long end = ranges[i + 1];
+            if (end < cursor) {
+                continue;
+            }
+            if (start > to) {
+                break;
+            }
+            if (start - cursor >= minLength) {
+                result[size++] = cursor;
+                result[size++] = start;
+            }
+            cursor = Math.max(cursor, end);
+        }
+        if (to - cursor >= minLength) {
+            result[size++] = cursor;
+            result[size++] = to;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static final class Helper extends SQLiteOpenHelper {
+        Helper(Context context) {
+            super(context, DATABASE_NAME, null, DATABASE_VERSION);
+            setWriteAheadLoggingEnabled(true);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE ticks ("
+                    + "instrument INTEGER NOT NULL, "
+                    + "ts INTEGER NOT NULL, "
+                    + "buy REAL, "
+                    + "sell REAL, "
+                    + "PRIMARY KEY (instrument, ts)) WITHOUT ROWID");
+            db.execSQL("CREATE TABLE synced_ranges ("
+                    + "instrument INTEGER NOT NULL, "
+                    + "start_ts INTEGER NOT NULL, "
+                    + "end_ts INTEGER NOT NULL, "
+                    + "PRIMARY KEY (instrument, start_ts)) WITHOUT ROWID");
+            TickRollups.createTable(db);
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            // Only one version so far
+        }
+    }
+}
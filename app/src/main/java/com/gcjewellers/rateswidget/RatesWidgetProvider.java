@@ -4,23 +4,25 @@ import android.app.AlarmManager;
 import android.app.PendingIntent;
 import android.appwidget.AppWidgetManager;
 import android.appwidget.AppWidgetProvider;
+import android.content.BroadcastReceiver;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.os.Build;
+import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.SystemClock;
 import android.util.Log;
+import android.util.SparseArray;
 import android.view.View;
-import android.view.animation.Animation;
-import android.view.animation.RotateAnimation;
 import android.widget.RemoteViews;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class RatesWidgetProvider extends AppWidgetProvider {
     private static final String TAG = "RatesWidgetProvider";
@@ -28,23 +30,55 @@ public class RatesWidgetProvider extends AppWidgetProvider {
     public static final String ACTION_UPDATE_WIDGET = "com.gcjewellers.rateswidget.UPDATE_WIDGET";
     public static final String ACTION_START_UPDATES = "com.gcjewellers.rateswidget.START_UPDATES";
     public static final String ACTION_STOP_UPDATES = "com.gcjewellers.rateswidget.STOP_UPDATES";
+    // Sent by RatesRefreshWorker when a refresh the spinner waits on is done
+    public static final String ACTION_REFRESH_FINISHED = "com.gcjewellers.rateswidget.REFRESH_FINISHED";
+    // Alarm taking the spinner down if no answer came, even if the process died meanwhile
+    private static final String ACTION_SPINNER_TIMEOUT = "com.gcjewellers.rateswidget.SPINNER_TIMEOUT";
 
     private static final String PREFS_NAME = "WidgetPrefs";
     private static final String KEY_AUTO_REFRESH = "autoRefresh";
-    private static final long UPDATE_INTERVAL = 15 * 60 * 1000; // 15 minutes
-    private static final long REFRESH_ANIMATION_DELAY = 500; // 0.5 second animation duration
-    private static final long REFRESH_ANIMATION_DURATION = 500; // 0.5 second animation duration
+    private static final long MIN_REFRESH_INTERVAL = 60 * 1000; // 1 minute
+    // Spinner stays up at least this long after loading started, so it never just flickers
+    private static final long MIN_SPINNER_TIME = 500;
+    // Held broadcasts are released by then, well inside the receiver's 10 second limit
+    private static final long RENDER_DEADLINE = 5 * 1000;
+    // Longer than the worker's fetch timeout, so a slow answer still wins
+    private static final long SPINNER_TIMEOUT = 30 * 1000;
+
+    /**
+     * What one widget currently shows, as last pushed by this process.
+     */
+    private static final class ShownState {
+        String goldText;
+        String silverText;
+        String updatedText;
+        boolean loading;
+    }
+
+    // Per widget id; empty after a process restart, so the next push is a full update
+    private static final SparseArray<ShownState> shownStates = new SparseArray<>();
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Elapsed realtime the spinner went up, or 0 when no refresh is in flight
+    private static long loadingStartedAt;
 
     @Override
     public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
         Log.d(TAG, "onUpdate called for widget");
-        // Update each widget
-        updateWidgets(context, appWidgetManager, appWidgetIds);
-
         // Set repeating updates if enabled
         if (isAutoRefreshEnabled(context)) {
-            startAutoRefresh(context);
+            RatesRefreshWorker.schedulePeriodic(context);
+        }
+
+        // WorkManager toggling its own components after a run triggers onUpdate again, so
+        // a widget refreshed moments ago only gets its button bound instead of a new fetch
+        if (System.currentTimeMillis() - RatesRefreshWorker.getLastRefreshAt(context) < MIN_REFRESH_INTERVAL) {
+            bindRefreshButton(context, appWidgetManager, appWidgetIds);
+            return;
         }
+        // Update each widget, over the last known rates
+        runWithCachedSnapshot(this, context, () -> updateWidgets(context, appWidgetManager, appWidgetIds));
     }
 
     @Override
@@ -64,64 +98,193 @@ public class RatesWidgetProvider extends AppWidgetProvider {
         switch (action) {
             case ACTION_UPDATE_WIDGET:
                 // Manual refresh button clicked
-                performRefreshAnimation(context, appWidgetManager, appWidgetIds);
+                runWithCachedSnapshot(this, context,
+                        () -> performRefreshAnimation(context, appWidgetManager, appWidgetIds));
                 break;
 
             case ACTION_START_UPDATES:
                 // Enable auto-refresh
                 setAutoRefreshEnabled(context, true);
-                startAutoRefresh(context);
-                updateWidgets(context, appWidgetManager, appWidgetIds);
+                RatesRefreshWorker.schedulePeriodic(context);
+                runWithCachedSnapshot(this, context, () -> updateWidgets(context, appWidgetManager, appWidgetIds));
                 break;
 
             case ACTION_STOP_UPDATES:
                 // Disable auto-refresh
                 setAutoRefreshEnabled(context, false);
-                stopAutoRefresh(context);
-                updateWidgets(context, appWidgetManager, appWidgetIds);
+                // Board widgets rely on the same periodic work
+                if (!RatesBoardWidgetProvider.hasWidgets(context)) {
+                    RatesRefreshWorker.cancelPeriodic(context);
+                }
+                runWithCachedSnapshot(this, context, () -> updateWidgets(context, appWidgetManager, appWidgetIds));
                 break;
 
-            case AppWidgetManager.ACTION_APPWIDGET_UPDATE:
-                // Check if intent has rate data
-                if (intent.hasExtra("goldRate")) {
-                    String goldRate = intent.getStringExtra("goldRate");
-                    String silverRate = intent.getStringExtra("silverRate");
-                    String lastUpdated = intent.getStringExtra("lastUpdated");
-
-                    Log.d(TAG, "Received data in widget update: Gold=" + goldRate + ", Silver=" + silverRate);
-
-                    // Add a delay for the loading animation to be visible
-                    new Handler(Looper.getMainLooper()).postDelayed(() -> {
-                        updateWidgetWithData(context, appWidgetManager, appWidgetIds,
-                                goldRate, silverRate, lastUpdated);
-                    }, REFRESH_ANIMATION_DELAY);
-                } else {
-                    Log.d(TAG, "No rate data in update intent, doing regular widget update");
-                    // Regular widget update
-                    updateWidgets(context, appWidgetManager, appWidgetIds);
+            case ACTION_REFRESH_FINISHED:
+                // The snapshot is read from the bus rather than carried in the intent
+                boolean failed = !intent.hasExtra(RatesRefreshWorker.EXTRA_SNAPSHOT_VERSION);
+                renderWhenReady(context, intent, () -> {
+                    LiveQuote quote = RatesSnapshotBus.getInstance(context).peekLatest();
+                    if (failed || quote == null) {
+                        for (int appWidgetId : appWidgetIds) {
+                            showErrorState(context, appWidgetManager, appWidgetId);
+                        }
+                    } else {
+                        renderSnapshot(context, appWidgetManager, appWidgetIds, quote,
+                                formatUpdatedTime(quote), true);
+                    }
+                });
+                break;
+
+            case ACTION_SPINNER_TIMEOUT:
+                // A newer refresh restarted the clock
+                if (loadingStartedAt != 0 && SystemClock.elapsedRealtime() - loadingStartedAt < SPINNER_TIMEOUT) {
+                    break;
                 }
+                loadingStartedAt = 0;
+                runWithCachedSnapshot(this, context,
+                        () -> takeSpinnerDown(context, appWidgetManager, appWidgetIds));
                 break;
         }
     }
 
-    private void performRefreshAnimation(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
-        Log.d(TAG, "performRefreshAnimation called");
-
+    /**
+     * Puts widgets still waiting on a refresh that never answered back on their last
+     * known rates.
+     */
+    private static void takeSpinnerDown(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
+        LiveQuote cached = RatesSnapshotBus.getInstance(context).peekLatest();
         for (int appWidgetId : appWidgetIds) {
-            try {
-                RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.rates_widget);
-
-                // Disable refresh button
-                views.setBoolean(R.id.refresh_button, "setEnabled", false);
+            ShownState shown = shownStates.get(appWidgetId);
+            if (shown == null) {
+                // The process restarted since; whatever the widget shows, the last
+                // known rates are a safe thing to put back
+                if (cached != null) {
+                    renderSnapshot(context, appWidgetManager, new int[]{appWidgetId}, cached,
+                            formatUpdatedTime(cached), true);
+                }
+            } else if (shown.loading) {
+                Log.w(TAG, "No refresh answer for widget " + appWidgetId + ", taking spinner down");
+                showErrorState(context, appWidgetManager, appWidgetId);
+            }
+        }
+    }
 
-                // Show progress, hide refresh button
-                views.setViewVisibility(R.id.refresh_progress, View.VISIBLE);
-                views.setViewVisibility(R.id.refresh_button, View.GONE);
+    /**
+     * Runs {@code work} on the main thread once the snapshot persisted by
+     * {@link LastQuoteCache} has been read, so what it draws can fall back to the last
+     * known rates. Right away if it is in memory; otherwise the file is read on the
+     * cache's thread while the broadcast is held. Call from {@code onReceive} only, and
+     * at most once per broadcast.
+     */
+    static void runWithCachedSnapshot(BroadcastReceiver receiver, Context context, Runnable work) {
+        LastQuoteCache quoteCache = LastQuoteCache.getInstance(context);
+        if (quoteCache.isLoaded() || RatesSnapshotBus.getInstance(context).peekLatest() != null) {
+            work.run();
+            return;
+        }
+        BroadcastReceiver.PendingResult pendingResult = receiver.goAsync();
+        quoteCache.readAsync(quote -> {
+            try {
+                work.run();
+            } catch (Exception e) {
+                Log.e(TAG, "Error updating widgets", e);
+            } finally {
+                pendingResult.finish();
+            }
+        });
+    }
 
-                appWidgetManager.updateAppWidget(appWidgetId, views);
+    /**
+     * Runs {@code render} once the spinner has been up for {@link #MIN_SPINNER_TIME},
+     * right away if it already has, while holding the broadcast so the process is not
+     * killed in between, and once the persisted snapshot has been read off the main
+     * thread. The broadcast is released after {@link #RENDER_DEADLINE} at the latest. Logs how long the fetch, the wait and the render each took.
+     */
+    private void renderWhenReady(Context context, Intent intent, Runnable render) {
+        PendingResult pendingResult = goAsync();
+        AtomicBoolean finished = new AtomicBoolean();
+
+        long receivedAt = SystemClock.elapsedRealtime();
+        long startedAt = loadingStartedAt != 0 ? loadingStartedAt : receivedAt;
+        long fetchMillis = intent.getLongExtra(RatesRefreshWorker.EXTRA_FETCH_MILLIS, -1);
+
+        Runnable renderTask = () -> {
+            if (finished.getAndSet(true)) {
+                return;
+            }
+            long renderStartedAt = SystemClock.elapsedRealtime();
+            try {
+                render.run();
             } catch (Exception e) {
-                Log.e(TAG, "Error preparing refresh animation for widget " + appWidgetId, e);
+                Log.e(TAG, "Error rendering widget update", e);
+            } finally {
+                loadingStartedAt = 0;
+                cancelSpinnerTimeout(context);
+                pendingResult.finish();
             }
+            Log.d(TAG, "Refresh timings: total=" + (SystemClock.elapsedRealtime() - startedAt)
+                    + "ms, fetch=" + fetchMillis
+                    + "ms, delivery=" + (receivedAt - startedAt)
+                    + "ms, spinner wait=" + (renderStartedAt - receivedAt)
+                    + "ms, render=" + (SystemClock.elapsedRealtime() - renderStartedAt) + "ms");
+        };
+        // Failures fall back to the persisted rates, so those are read first, off this thread
+        LastQuoteCache.getInstance(context).readAsync(quote -> {
+            long delay = Math.max(0, MIN_SPINNER_TIME - (SystemClock.elapsedRealtime() - startedAt));
+            mainHandler.postDelayed(renderTask, delay);
+        });
+
+        mainHandler.postDelayed(() -> {
+            if (!finished.getAndSet(true)) {
+                Log.w(TAG, "Widget render missed its deadline, releasing broadcast");
+                pendingResult.finish();
+            }
+        }, RENDER_DEADLINE);
+    }
+
+    /**
+     * Starts the spinner clock and arms the alarm that takes the spinner down after
+     * {@link #SPINNER_TIMEOUT} if the worker never answers.
+     */
+    private static void markLoadingStarted(Context context) {
+        // Restarted on each new refresh, so a result that never came does not linger
+        loadingStartedAt = SystemClock.elapsedRealtime();
+
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager != null) {
+            // Replaces the alarm of any earlier refresh
+            alarmManager.set(AlarmManager.ELAPSED_REALTIME, loadingStartedAt + SPINNER_TIMEOUT,
+                    getSpinnerTimeoutIntent(context));
+        }
+    }
+
+    /**
+     * Disarms the spinner alarm once the refresh it guards has been answered.
+     */
+    private static void cancelSpinnerTimeout(Context context) {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager != null) {
+            alarmManager.cancel(getSpinnerTimeoutIntent(context));
+        }
+    }
+
+    private static PendingIntent getSpinnerTimeoutIntent(Context context) {
+        Intent timeoutIntent = new Intent(context, RatesWidgetProvider.class);
+        timeoutIntent.setAction(ACTION_SPINNER_TIMEOUT);
+        return PendingIntent.getBroadcast(
+                context, 0, timeoutIntent,
+                Build.VERSION.SDK_INT >= Build.VERSION_CODES.M
+                        ? PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+                        : PendingIntent.FLAG_UPDATE_CURRENT);
+    }
+
+    private void performRefreshAnimation(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
+        Log.d(TAG, "performRefreshAnimation called");
+        markLoadingStarted(context);
+
+        for (int appWidgetId : appWidgetIds) {
+            // Swap the refresh button for the progress indicator
+            applyState(context, appWidgetManager, appWidgetId, null, null, null, true);
         }
 
         // Fetch new rates after animation
@@ -131,10 +294,12 @@ public class RatesWidgetProvider extends AppWidgetProvider {
     private void updateWidgets(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
         Log.d(TAG, "updateWidgets called");
 
-        // Handle refreshing indicator
+        // Last known rates stay on screen under the refreshing indicator
+        LiveQuote cached = RatesSnapshotBus.getInstance(context).peekLatest();
+        markLoadingStarted(context);
         for (int appWidgetId : appWidgetIds) {
             // Show loading state
-            showLoadingState(context, appWidgetManager, appWidgetId);
+            showLoadingState(context, appWidgetManager, appWidgetId, cached);
         }
 
         // Fetch fresh data from API
@@ -143,160 +308,180 @@ public class RatesWidgetProvider extends AppWidgetProvider {
 
     private void fetchRatesAndUpdateWidgets(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
         Log.d(TAG, "fetchRatesAndUpdateWidgets called");
-        RatesRepository repository = new RatesRepository(context);
-
-        repository.fetchRates(new RatesRepository.RatesFetchCallback() {
-            @Override
-            public void onSuccess(String goldRate, String silverRate, String lastUpdated,
-                    String yesterdayGoldRate, String yesterdaySilverRate,
-                    String goldChangeValue, String silverChangeValue) {
-
-                Log.d(TAG, "Successfully fetched rates for widget: Gold=" + goldRate + ", Silver=" + silverRate);
-
-                // Show loading state for at least 0.5 seconds
-                new Handler(Looper.getMainLooper()).postDelayed(() -> {
-                    // Update all widgets with fetched data
-                    updateWidgetWithData(context, appWidgetManager, appWidgetIds,
-                            goldRate, silverRate, lastUpdated);
-                }, REFRESH_ANIMATION_DELAY);
+        // The worker broadcasts the result back to onReceive
+        RatesRefreshWorker.refreshNow(context);
+    }
+
+    /**
+     * Points each widget's refresh button at this provider without touching its other views.
+     * Widgets already drawn by this process have it bound and are skipped.
+     */
+    private void bindRefreshButton(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
+        for (int appWidgetId : appWidgetIds) {
+            if (shownStates.get(appWidgetId) != null) {
+                continue;
             }
+            RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.rates_widget);
+            views.setOnClickPendingIntent(R.id.refresh_button, getRefreshPendingIntent(context));
+            appWidgetManager.partiallyUpdateAppWidget(appWidgetId, views);
+        }
+    }
 
-            @Override
-            public void onError(String errorMessage) {
-                Log.e(TAG, "Error fetching rates for widget: " + errorMessage);
+    private static PendingIntent getRefreshPendingIntent(Context context) {
+        Intent refreshIntent = new Intent(context, RatesWidgetProvider.class);
+        refreshIntent.setAction(ACTION_UPDATE_WIDGET);
+        return PendingIntent.getBroadcast(
+                context, 0, refreshIntent,
+                Build.VERSION.SDK_INT >= Build.VERSION_CODES.M
+                        ? PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+                        : PendingIntent.FLAG_UPDATE_CURRENT);
+    }
 
-                // Show loading state for at least 0.5 seconds
-                new Handler(Looper.getMainLooper()).postDelayed(() -> {
-                    // Show error state in widgets
-                    for (int appWidgetId : appWidgetIds) {
-                        showErrorState(context, appWidgetManager, appWidgetId);
-                    }
-                }, REFRESH_ANIMATION_DELAY);
+    /**
+     * Draws a new snapshot on every widget from the snapshot bus's thread, leaving each
+     * widget's spinner as it is; the refresh it belongs to takes the spinner down.
+     */
+    static void onSnapshot(Context context, LiveQuote quote) {
+        Context appContext = context.getApplicationContext();
+        mainHandler.post(() -> {
+            AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(appContext);
+            int[] appWidgetIds = appWidgetManager.getAppWidgetIds(
+                    new ComponentName(appContext, RatesWidgetProvider.class));
+            if (appWidgetIds.length > 0) {
+                renderSnapshot(appContext, appWidgetManager, appWidgetIds, quote, formatUpdatedTime(quote), false);
             }
         });
     }
 
-    private void updateWidgetWithData(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds,
-            String goldRate, String silverRate, String lastUpdated) {
-
-        Log.d(TAG, "updateWidgetWithData: Gold=" + goldRate + ", Silver=" + silverRate);
+    private static void renderSnapshot(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds,
+            LiveQuote quote, String updatedText, boolean stopLoading) {
+        String goldText = "₹ " + quote.getSellText(LiveQuote.GOLD);
+        String silverText = "₹ " + quote.getSellText(LiveQuote.SILVER_FUTURE);
+        Log.d(TAG, "renderSnapshot: version=" + quote.getVersion() + ", Gold=" + goldText + ", Silver=" + silverText);
 
         for (int appWidgetId : appWidgetIds) {
-            try {
-                // Get the layout for the widget
-                RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.rates_widget);
-
-                // Set the rates data with space between ₹ and rate
-                views.setTextViewText(R.id.gold_rate, "₹ " + goldRate);
-                views.setTextViewText(R.id.silver_rate, "₹ " + silverRate);
-                views.setTextViewText(R.id.rates_updated_time, lastUpdated);
-
-                // Set up refresh button click intent
-                Intent refreshIntent = new Intent(context, RatesWidgetProvider.class);
-                refreshIntent.setAction(ACTION_UPDATE_WIDGET);
-                PendingIntent refreshPendingIntent = PendingIntent.getBroadcast(
-                        context, 0, refreshIntent,
-                        Build.VERSION.SDK_INT >= Build.VERSION_CODES.M
-                                ? PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-                                : PendingIntent.FLAG_UPDATE_CURRENT);
-                views.setOnClickPendingIntent(R.id.refresh_button, refreshPendingIntent);
-
-                // Re-enable refresh button
-                views.setBoolean(R.id.refresh_button, "setEnabled", true);
-
-                // Hide loading indicator, show refresh button
-                views.setViewVisibility(R.id.refresh_progress, View.GONE);
-                views.setViewVisibility(R.id.refresh_button, View.VISIBLE);
-
-                // Update the widget
-                appWidgetManager.updateAppWidget(appWidgetId, views);
-
-                Log.d(TAG, "Widget " + appWidgetId + " updated successfully");
-            } catch (Exception e) {
-                Log.e(TAG, "Error updating widget " + appWidgetId, e);
-            }
+            ShownState shown = shownStates.get(appWidgetId);
+            boolean loading = !stopLoading && shown != null && shown.loading;
+            applyState(context, appWidgetManager, appWidgetId, goldText, silverText, updatedText, loading);
         }
-    }
 
-    private void showLoadingState(Context context, AppWidgetManager appWidgetManager, int appWidgetId) {
-        try {
-            RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.rates_widget);
-
-            // Show loading indicator, hide refresh button
-            views.setViewVisibility(R.id.refresh_progress, View.VISIBLE);
-            views.setViewVisibility(R.id.refresh_button, View.GONE);
+        // Sparklines are drawn off the main thread and pushed separately
+        WidgetSparklines.renderAsync(context, appWidgetIds);
+    }
 
-            appWidgetManager.updateAppWidget(appWidgetId, views);
-        } catch (Exception e) {
-            Log.e(TAG, "Error showing loading state for widget " + appWidgetId, e);
+    private void showLoadingState(Context context, AppWidgetManager appWidgetManager, int appWidgetId,
+            LiveQuote cached) {
+        if (cached != null) {
+            applyState(context, appWidgetManager, appWidgetId,
+                    "₹ " + cached.getSellText(LiveQuote.GOLD),
+                    "₹ " + cached.getSellText(LiveQuote.SILVER_FUTURE),
+                    formatUpdatedTime(cached), true);
+        } else {
+            applyState(context, appWidgetManager, appWidgetId, null, null, null, true);
         }
     }
 
-    private void showErrorState(Context context, AppWidgetManager appWidgetManager, int appWidgetId) {
-        try {
-            RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.rates_widget);
+    /**
+     * Fetch time of a snapshot, flagged when it is too old to pass for current.
+     */
+    private static String formatUpdatedTime(LiveQuote quote) {
+        String time = new SimpleDateFormat("hh:mm a", Locale.getDefault()).format(new Date(quote.getFetchedAt()));
+        return LastQuoteCache.isStale(quote) ? "Stale · " + time : time;
+    }
 
-            // Set error text in rate fields with space after ₹
-            views.setTextViewText(R.id.gold_rate, "₹ Error");
-            views.setTextViewText(R.id.silver_rate, "₹ Error");
-            views.setTextViewText(R.id.rates_updated_time, "Update Failed");
-
-            // Hide loading indicator, show refresh button
-            views.setViewVisibility(R.id.refresh_progress, View.GONE);
-            views.setViewVisibility(R.id.refresh_button, View.VISIBLE);
-
-            // Set up refresh button click intent
-            Intent refreshIntent = new Intent(context, RatesWidgetProvider.class);
-            refreshIntent.setAction(ACTION_UPDATE_WIDGET);
-            PendingIntent refreshPendingIntent = PendingIntent.getBroadcast(
-                    context, 0, refreshIntent,
-                    Build.VERSION.SDK_INT >= Build.VERSION_CODES.M
-                            ? PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-                            : PendingIntent.FLAG_UPDATE_CURRENT);
-            views.setOnClickPendingIntent(R.id.refresh_button, refreshPendingIntent);
-
-            // Re-enable refresh button
-            views.setBoolean(R.id.refresh_button, "setEnabled", true);
-
-            appWidgetManager.updateAppWidget(appWidgetId, views);
-        } catch (Exception e) {
-            Log.e(TAG, "Error showing error state for widget " + appWidgetId, e);
+    private static void showErrorState(Context context, AppWidgetManager appWidgetManager, int appWidgetId) {
+        // Keep showing the last known rates rather than flashing an error over them
+        LiveQuote cached = RatesSnapshotBus.getInstance(context).peekLatest();
+        if (cached != null) {
+            renderSnapshot(context, appWidgetManager, new int[]{appWidgetId}, cached,
+                    formatUpdatedTime(cached), true);
+            return;
         }
+        // Set error text in rate fields with space after ₹
+        applyState(context, appWidgetManager, appWidgetId,
+                "₹ Error", "₹ Error", "Update Failed", false);
     }
 
-    // Existing methods for handling auto-refresh
-    private void startAutoRefresh(Context context) {
-        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
-        PendingIntent pendingIntent = getAlarmPendingIntent(context);
+    /**
+     * Brings a widget to the given texts and loading state, sending only the views that
+     * differ from what it shows now, and nothing at all when none do. A null text leaves
+     * that view as it is. A widget this process has not drawn yet gets a full update,
+     * which also binds its refresh button and falls back to cached rates for null texts.
+     */
+    private static void applyState(Context context, AppWidgetManager appWidgetManager, int appWidgetId,
+            String goldText, String silverText, String updatedText, boolean loading) {
+        ShownState shown = shownStates.get(appWidgetId);
+        boolean full = shown == null;
+        if (full) {
+            shown = new ShownState();
+            // A full update resets every view, so fill unspecified texts from the cache
+            LiveQuote cached = RatesSnapshotBus.getInstance(context).peekLatest();
+            if (cached != null) {
+                goldText = goldText != null ? goldText : "₹ " + cached.getSellText(LiveQuote.GOLD);
+                silverText = silverText != null ? silverText : "₹ " + cached.getSellText(LiveQuote.SILVER_FUTURE);
+                updatedText = updatedText != null ? updatedText : formatUpdatedTime(cached);
+            }
+        }
 
-        if (alarmManager != null) {
-            alarmManager.setInexactRepeating(
-                    AlarmManager.ELAPSED_REALTIME,
-                    SystemClock.elapsedRealtime() + UPDATE_INTERVAL,
-                    UPDATE_INTERVAL,
-                    pendingIntent);
+        RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.rates_widget);
+        boolean changed = false;
+        if (goldText != null && (full || !goldText.equals(shown.goldText))) {
+            views.setTextViewText(R.id.gold_rate, goldText);
+            shown.goldText = goldText;
+            changed = true;
+        }
+        if (silverText != null && (full || !silverText.equals(shown.silverText))) {
+            views.setTextViewText(R.id.silver_rate, silverText);
+            shown.silverText = silverText;
+            changed = true;
+        }
+        if (updatedText != null && (full || !updatedText.equals(shown.updatedText))) {
+            views.setTextViewText(R.id.rates_updated_time, updatedText);
+            shown.updatedText = updatedText;
+            changed = true;
+        }
+        if (full || loading != shown.loading) {
+            // Progress indicator and refresh button take turns
+            views.setViewVisibility(R.id.refresh_progress, loading ? View.VISIBLE : View.GONE);
+            views.setViewVisibility(R.id.refresh_button, loading ? View.GONE : View.VISIBLE);
+            views.setBoolean(R.id.refresh_button, "setEnabled", !loading);
+            shown.loading = loading;
+            changed = true;
+        }
 
-            Log.d(TAG, "Auto-refresh started");
+        try {
+            if (full) {
+                // Set up refresh button click intent
+                views.setOnClickPendingIntent(R.id.refresh_button, getRefreshPendingIntent(context));
+                appWidgetManager.updateAppWidget(appWidgetId, views);
+                shownStates.put(appWidgetId, shown);
+                // The full update hid the sparklines again
+                WidgetSparklines.invalidate(appWidgetId);
+            } else if (changed) {
+                appWidgetManager.partiallyUpdateAppWidget(appWidgetId, views);
+            } else {
+                Log.d(TAG, "Widget " + appWidgetId + " already up to date");
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error updating widget " + appWidgetId, e);
+            // Unknown what the widget shows now; redraw it fully next time
+            shownStates.remove(appWidgetId);
         }
     }
 
-    private void stopAutoRefresh(Context context) {
-        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
-        PendingIntent pendingIntent = getAlarmPendingIntent(context);
-
-        if (alarmManager != null) {
-            alarmManager.cancel(pendingIntent);
-            Log.d(TAG, "Auto-refresh stopped");
-        }
+    @Override
+    public void onAppWidgetOptionsChanged(Context context, AppWidgetManager appWidgetManager,
+            int appWidgetId, Bundle newOptions) {
+        // Resized: sparklines are redrawn to the new width
+        WidgetSparklines.renderAsync(context, new int[]{appWidgetId});
     }
 
-    private PendingIntent getAlarmPendingIntent(Context context) {
-        Intent intent = new Intent(context, WidgetUpdateService.class);
-        return PendingIntent.getService(
-                context, 0, intent,
-                Build.VERSION.SDK_INT >= Build.VERSION_CODES.M
-                        ? PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-                        : PendingIntent.FLAG_UPDATE_CURRENT);
+    @Override
+    public void onDeleted(Context context, int[] appWidgetIds) {
+        for (int appWidgetId : appWidgetIds) {
+            shownStates.remove(appWidgetId);
+            WidgetSparklines.invalidate(appWidgetId);
+        }
     }
 
     public boolean isAutoRefreshEnabled(Context context) {
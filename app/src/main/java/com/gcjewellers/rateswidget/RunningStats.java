@@ -0,0 +1,92 @@
+package com.gcjewellers.rateswidget;
+
+/**
+ * Single-pass count/min/max/mean/variance/last accumulator (Welford).
+ *
+ * Each {@link #add} is O(1) and numerically stable, and two accumulators over disjoint
+ * samples can be combined with {@link #merge}, so statistics for a range can be built
+ * from per-bucket accumulators without revisiting the underlying ticks. NaN samples are
+ * ignored. Not thread-safe.
+ */
+public final class RunningStats {
+    private long count;
+    private double mean;
+    private double m2;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    private double last = Double.NaN;
+
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        min = count == 1 ? value : Math.min(min, value);
+        max = count == 1 ? value : Math.max(max, value);
+        last = value;
+    }
+
+    /**
+     * Folds in another accumulator; {@code other} is taken to follow this one in time,
+     * so its last value wins.
+     */
+    public void merge(RunningStats other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            count = other.count;
+            mean = other.mean;
+            m2 = other.m2;
+            min = other.min;
+            max = other.max;
+            last = other.last;
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        count = total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        last = other.last;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getLast() {
+        return last;
+    }
+
+    /**
+     * NaN when empty.
+     */
+    public double getMean() {
+        return count > 0 ? mean : Double.NaN;
+    }
+
+    /**
+     * Sample variance; NaN with fewer than two samples.
+     */
+    public double getVariance() {
+        return count > 1 ? m2 / (count - 1) : Double.NaN;
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+}
@@ -0,0 +1,137 @@
+package com.gcjewellers.rateswidget;
+
+import java.util.Arrays;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling for chart series.
+ *
+ * Points are addressed by their index in the full series, which is also their chart x
+ * value, so a sampled set can be plotted without remapping labels. The highest and lowest
+ * points of the sampled range are always kept so real extremes stay visible; for rollup
+ * buckets they are picked by the buckets' highs and lows rather than their closes.
+ */
+final class SeriesDownsampler {
+
+    private SeriesDownsampler() {}
+
+    /**
+     * Picks at most about {@code threshold} indices from {@code [from, to]} (inclusive),
+     * in ascending order, always including both ends and the extremes.
+     */
+    static int[] sample(float[] values, int from, int to, int threshold) {
+        return sample(values, values, values, from, to, threshold);
+    }
+
+    /**
+     * Like {@link #sample(float[], int, int, int)}, with the extremes taken from
+     * {@code highs} and {@code lows}, parallel to {@code values}.
+     */
+    static int[] sample(float[] values, float[] highs, float[] lows, int from, int to, int threshold) {
+        int count = to - from + 1;
+        if (count <= 0) {
+            return new int[0];
+        }
+        if (threshold < 3 || count <= threshold) {
+            int[] all = new int[count];
+            for (int i = 0; i < count; i++) {
+                all[i] = from + i;
+            }
+            return all;
+        }
+
+        // threshold LTTB points plus the two extremes
+        int[] sampled = new int[threshold + 2];
+        int size = 0;
+        sampled[size++] = from;
+
+        double bucketSize = (double) (count - 2) / (threshold - 2);
+        int previous = from;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int bucketStart = from + 1 + (int) (bucket * bucketSize);
+            int bucketEnd = Math.min(to, from + 1 + (int) ((bucket + 1) * bucketSize));
+
+            // Average of the next bucket is the third triangle vertex
+            int nextStart = bucketEnd;
+            int nextEnd = Math.min(to + 1, from + 1 + (int) ((bucket + 2) * bucketSize));
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += i;
+                averageY += values[i];
+            }
+            int nextCount = nextEnd - nextStart;
+            if (nextCount > 0) {
+                averageX /= nextCount;
+                averageY /= nextCount;
+            } else {
+                averageX = to;
+                averageY = values[to];
+            }
+
+            double previousY = values[previous];
+            double maxArea = -1;
+            int chosen = bucketStart;
+            for (int i = bucketStart; i < bucketEnd; i++) {
+                double area = Math.abs((previous - averageX) * (values[i] - previousY)
+                        - (previous - i) * (averageY - previousY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            sampled[size++] = chosen;
+            previous = chosen;
+        }
+        sampled[size++] = to;
+
+        sampled[size++] = indexOfLowest(lows, from, to);
+        sampled[size++] = indexOfHighest(highs, from, to);
+        return distinctSorted(sampled, size);
+    }
+
+    /**
+     * Index of the highest value in {@code [from, to]} (inclusive), or -1 if the range is empty.
+     */
+    static int indexOfHighest(float[] values, int from, int to) {
+        int highest = from <= to ? from : -1;
+        for (int i = from + 1; i <= to; i++) {
+            if (values[i] > values[highest]) {
+                highest = i;
+            }
+        }
+        return highest;
+    }
+
+    /**
+     * Index of the lowest value in {@code [from, to]} (inclusive), or -1 if the range is empty.
+     */
+    static int indexOfLowest(float[] values, int from, int to) {
+        int lowest = from <= to ? from : -1;
+        for (int i = from + 1; i <= to; i++) {
+            if (values[i] < values[lowest]) {
+                lowest = i;
+            }
+        }
+        return lowest;
+    }
+
+    /**
+     * Union of two ascending index sets.
+     */
+    static int[] merge(int[] a, int[] b) {
+        int[] all = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, all, a.length, b.length);
+        return distinctSorted(all, all.length);
+    }
+
+    private static int[] distinctSorted(int[] indices, int length) {
+        Arrays.sort(indices, 0, length);
+        int size = 0;
+        for (int i = 0; i < length; i++) {
+            if (size == 0 || indices[i] != indices[size - 1]) {
+                indices[size++] = indices[i];
+            }
+        }
+        return Arrays.copyOf(indices, size);
+    }
+}
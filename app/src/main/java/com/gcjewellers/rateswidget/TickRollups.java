@@ -0,0 +1,212 @@
+package com.gcjewellers.rateswidget;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Incremental open/high/low/close rollups of ticks at fixed resolutions.
+ *
+ * Ticks are first folded into per-bucket partials in memory, then each touched bucket is
+ * merged into the rollups table with one insert-or-ignore and one update, so a batch of
+ * any size costs one pair of statements per bucket rather than per tick. Merging by
+ * open/close timestamps makes the result independent of arrival order, so late history
+ * pages and live ticks can interleave freely. Buckets are aligned to IST so daily bars
+ * match the trading day. Merging can only widen a bucket, so when a stored tick is
+ * replaced its days are recomputed from the ticks with {@link #rebuildDay} instead.
+ */
+final class TickRollups {
+    static final int RESOLUTION_1M = 0;
+    static final int RESOLUTION_15M = 1;
+    static final int RESOLUTION_1H = 2;
+    static final int RESOLUTION_1D = 3;
+    static final int RESOLUTION_COUNT = 4;
+
+    static final long[] RESOLUTION_MS = {60000L, 15 * 60000L, 3600000L, 86400000L};
+
+    static final int SIDE_BUY = 0;
+    static final int SIDE_SELL = 1;
+
+    // IST is UTC+05:30 all year
+    private static final long ALIGN_OFFSET_MS = (5 * 60 + 30) * 60000L;
+
+    // Partials held before an automatic flush
+    private static final int MAX_PENDING = 20000;
+
+    private static final int OPEN = 0;
+    private static final int HIGH = 1;
+    private static final int LOW = 2;
+    private static final int CLOSE = 3;
+    private static final int OPEN_TS = 4;
+    private static final int CLOSE_TS = 5;
+
+    private final SQLiteDatabase db;
+    private final Map<Long, double[]> pending = new HashMap<>();
+    private SQLiteStatement insert;
+    private SQLiteStatement update;
+
+    /**
+     * Writes to {@code db}; the caller owns the surrounding transaction.
+     */
+    TickRollups(SQLiteDatabase db) {
+        this.db = db;
+    }
+
+    static void createTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE rollups ("
+                + "resolution INTEGER NOT NULL, "
+                + "instrument INTEGER NOT NULL, "
+                + "side INTEGER NOT NULL, "
+                + "bucket INTEGER NOT NULL, "
+                + "open REAL NOT NULL, "
+                + "high REAL NOT NULL, "
+                + "low REAL NOT NULL, "
+                + "close REAL NOT NULL, "
+                + "open_ts INTEGER NOT NULL, "
+                + "close_ts INTEGER NOT NULL, "
+                + "PRIMARY KEY (resolution, instrument, side, bucket)) WITHOUT ROWID");
+    }
+
+    static long bucketStart(long timestamp, int resolution) {
+        long size = RESOLUTION_MS[resolution];
+        return Math.floorDiv(timestamp + ALIGN_OFFSET_MS, size) * size - ALIGN_OFFSET_MS;
+    }
+
+    /**
+     * Folds one tick into every resolution. NaN values are ignored.
+     */
+    void add(int instrument, int side, long timestamp, double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        for (int resolution = 0; resolution < RESOLUTION_COUNT; resolution++) {
+            long bucket = bucketStart(timestamp, resolution);
+            Long key = key(resolution, instrument, side, bucket);
+            double[] partial = pending.get(key);
+            if (partial == null) {
+                pending.put(key, new double[]{value, value, value, value, timestamp, timestamp});
+                continue;
+            }
+            partial[HIGH] = Math.max(partial[HIGH], value);
+            partial[LOW] = Math.min(partial[LOW], value);
+            if (timestamp <= partial[OPEN_TS]) {
+                partial[OPEN] = value;
+                partial[OPEN_TS] = timestamp;
+            }
+            if (timestamp >= partial[CLOSE_TS]) {
+                partial[CLOSE] = value;
+                partial[CLOSE_TS] = timestamp;
+            }
+        }
+        if (pending.size() >= MAX_PENDING) {
+            flush();
+        }
+    }
+
+    /**
+     * Merges every pending partial into the table.
+     */
+    void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        if (insert == null) {
+            insert = db.compileStatement("INSERT OR IGNORE INTO rollups (resolution, instrument, side,"
+                    + " bucket, open, high, low, close, open_ts, close_ts)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+            // SET expressions all see the row as it was before the update
+            update = db.compileStatement("UPDATE rollups SET"
+                    + " high = MAX(high, ?1), low = MIN(low, ?2),"
+                    + " open = CASE WHEN ?4 <= open_ts THEN ?3 ELSE open END,"
+                    + " open_ts = MIN(open_ts, ?4),"
+                    + " close = CASE WHEN ?6 >= close_ts THEN ?5 ELSE close END,"
+                    + " close_ts = MAX(close_ts, ?6)"
+                    + " WHERE resolution = ?7 AND instrument = ?8 AND side = ?9 AND bucket = ?10");
+        }
+        for (Map.Entry<Long, double[]> entry : pending.entrySet()) {
+            long key = entry.getKey();
+            double[] partial = entry.getValue();
+            int side = (int) (key & 1);
+            int instrument = (int) ((key >> 1) & 7);
+            int resolution = (int) ((key >> 4) & 3);
+            long bucket = (key >> 6) * 60000L - ALIGN_OFFSET_MS;
+
+            insert.bindLong(1, resolution);
+            insert.bindLong(2, instrument);
+            insert.bindLong(3, side);
+            insert.bindLong(4, bucket);
+            insert.bindDouble(5, partial[OPEN]);
+            insert.bindDouble(6, partial[HIGH]);
+            insert.bindDouble(7, partial[LOW]);
+            insert.bindDouble(8, partial[CLOSE]);
+            insert.bindLong(9, (long) partial[OPEN_TS]);
+            insert.bindLong(10, (long) partial[CLOSE_TS]);
+            if (insert.executeUpdateDelete() > 0) {
+                // New bucket; nothing to merge
+                continue;
+            }
+
+            update.bindDouble(1, partial[HIGH]);
+            update.bindDouble(2, partial[LOW]);
+            update.bindDouble(3, partial[OPEN]);
+            update.bindLong(4, (long) partial[OPEN_TS]);
+            update.bindDouble(5, partial[CLOSE]);
+            update.bindLong(6, (long) partial[CLOSE_TS]);
+            update.bindLong(7, resolution);
+            update.bindLong(8, instrument);
+            update.bindLong(9, side);
+            update.bindLong(10, bucket);
+            update.executeUpdateDelete();
+        }
+        pending.clear();
+    }
+
+    /**
+     * Recomputes every bucket of one instrument within the IST day holding
+     * {@code timestamp} from the stored ticks. Finer buckets nest inside the day, so no
+     * bucket is left half rebuilt. Pending partials are flushed first.
+     */
+    void rebuildDay(int instrument, long timestamp) {
+        flush();
+        long dayStart = bucketStart(timestamp, RESOLUTION_1D);
+        long dayEnd = dayStart + RESOLUTION_MS[RESOLUTION_1D];
+        db.execSQL("DELETE FROM rollups WHERE instrument = ? AND bucket >= ? AND bucket < ?",
+                new Object[]{instrument, dayStart, dayEnd});
+        try (Cursor cursor = db.rawQuery("SELECT ts, buy, sell FROM ticks"
+                        + " WHERE instrument = ? AND ts >= ? AND ts < ?",
+                new String[]{String.valueOf(instrument), String.valueOf(dayStart), String.valueOf(dayEnd)})) {
+            while (cursor.moveToNext()) {
+                long tickTimestamp = cursor.getLong(0);
+                if (!cursor.isNull(1)) {
+                    add(instrument, SIDE_BUY, tickTimestamp, cursor.getDouble(1));
+                }
+                if (!cursor.isNull(2)) {
+                    add(instrument, SIDE_SELL, tickTimestamp, cursor.getDouble(2));
+                }
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Flushes and releases the compiled statements.
+     */
+    void close() {
+        flush();
+        if (insert != null) {
+            insert.close();
+            update.close();
+            insert = null;
+            update = null;
+        }
+    }
+
+    private static Long key(int resolution, int instrument, int side, long bucket) {
+        // Every bucket start is a whole number of minutes past the alignment offset
+        long minutes = (bucket + ALIGN_OFFSET_MS) / 60000L;
+        return (minutes << 6) | ((long) resolution << 4) | ((long) instrument << 1) | side;
+    }
+}
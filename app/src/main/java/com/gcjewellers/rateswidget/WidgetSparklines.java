@@ -0,0 +1,255 @@
+package com.gcjewellers.rateswidget;
+
+import android.appwidget.AppWidgetManager;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.os.Bundle;
+import android.util.DisplayMetrics;
+import android.util.Log;
+import android.util.SparseArray;
+import android.view.View;
+import android.widget.RemoteViews;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Draws the intraday gold and silver sparklines of the home screen widgets.
+ *
+ * Everything runs on one background thread: the ticks are read from
+ * {@link RatesTickStore} once per pass, reduced to about one point per two pixels, and
+ * drawn into bitmaps sized from each widget's reported width. Bitmaps and their canvases
+ * are pooled by size and reused, which is safe because each one is copied into the
+ * RemoteViews parcel before the next pass draws again. A sparkline is pushed only when
+ * its quantised pixel shape differs from the one the widget already shows.
+ */
+final class WidgetSparklines {
+    private static final String TAG = "WidgetSparklines";
+
+    private static final int[] INSTRUMENTS = {LiveQuote.GOLD, LiveQuote.SILVER_FUTURE};
+    private static final int[] VIEW_IDS = {R.id.gold_sparkline, R.id.silver_sparkline};
+    private static final int[] COLORS = {0xFFFFD700, 0xFFC0C0C0};
+
+    private static final int HEIGHT_DP = 20;
+    private static final float STROKE_DP = 1.5f;
+    // Widgets shorter than this have no room below the rates
+    private static final int MIN_WIDGET_HEIGHT_DP = 80;
+    private static final long WINDOW_MS = 24 * 60 * 60 * 1000L;
+    // Pooled surfaces kept before the pool is emptied
+    private static final int MAX_POOLED = 8;
+
+    // Shape hash meaning "not shown"
+    private static final int HIDDEN = 0;
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "widget-sparklines");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Only touched on the executor thread
+    private static final SparseArray<int[]> shownShapes = new SparseArray<>();
+    private static final Map<Long, Surface> pool = new HashMap<>();
+    private static final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    private static final class Surface {
+        final Bitmap bitmap;
+        final Canvas canvas;
+
+        Surface(int width, int height) {
+            bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            canvas = new Canvas(bitmap);
+        }
+    }
+
+    private WidgetSparklines() {}
+
+    /**
+     * Redraws the sparklines of the given widgets in the background, pushing only those
+     * whose shape changed.
+     */
+    static void renderAsync(Context context, int[] appWidgetIds) {
+        Context appContext = context.getApplicationContext();
+        executor.execute(() -> {
+            try {
+                renderAll(appContext, appWidgetIds);
+            } catch (Exception e) {
+                Log.e(TAG, "Error rendering sparklines", e);
+            }
+        });
+    }
+
+    /**
+     * Forgets what a widget shows, after it was fully redrawn or deleted.
+     */
+    static void invalidate(int appWidgetId) {
+        executor.execute(() -> shownShapes.remove(appWidgetId));
+    }
+
+    private static void renderAll(Context context, int[] appWidgetIds) {
+        AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        // RemoteViews rejects bitmaps totalling more than 1.5 screens of ARGB pixels
+        long maxBitmapBytes = (long) (1.5 * metrics.widthPixels * metrics.heightPixels * 4);
+
+        long to = System.currentTimeMillis();
+        long from = to - WINDOW_MS;
+        HistorySeries history = null;
+        int loadedForWidth = -1;
+
+        for (int appWidgetId : appWidgetIds) {
+            Bundle options = appWidgetManager.getAppWidgetOptions(appWidgetId);
+            int widthDp = options.getInt(AppWidgetManager.OPTION_APPWIDGET_MIN_WIDTH);
+            int heightDp = options.getInt(AppWidgetManager.OPTION_APPWIDGET_MAX_HEIGHT);
+
+            int[] shown = shownShapes.get(appWidgetId);
+            if (shown == null) {
+                shown = new int[]{HIDDEN, HIDDEN};
+                shownShapes.put(appWidgetId, shown);
+            }
+
+            // Each sparkline spans its half of the widget, less padding
+            int width = Math.round((widthDp / 2f - 16) * metrics.density);
+            int height = Math.round(HEIGHT_DP * metrics.density);
+            if (heightDp < MIN_WIDGET_HEIGHT_DP || width < height) {
+                hide(context, appWidgetManager, appWidgetId, shown);
+                continue;
+            }
+            while ((long) width * height * 4 * INSTRUMENTS.length > maxBitmapBytes) {
+                width /= 2;
+            }
+
+            if (history == null || loadedForWidth < width) {
+                int resolution = RatesTickStore.chooseResolution(from, to, width / 2);
+                RatesTickStore tickStore = RatesTickStore.getInstance(context);
+                history = resolution == RatesTickStore.RESOLUTION_RAW
+                        ? tickStore.loadHistory(from, to)
+                        : tickStore.loadRollups(resolution, from, to);
+                loadedForWidth = width;
+            }
+            render(context, appWidgetManager, appWidgetId, history, width, height, shown);
+        }
+    }
+
+    private static void render(Context context, AppWidgetManager appWidgetManager, int appWidgetId,
+                               HistorySeries history, int width, int height, int[] shown) {
+        RemoteViews views = null;
+        for (int slot = 0; slot < INSTRUMENTS.length; slot++) {
+            HistorySeries.Series series = history.select(INSTRUMENTS[slot], false);
+            if (series.size < 2) {
+                if (shown[slot] != HIDDEN) {
+                    views = views != null ? views : new RemoteViews(context.getPackageName(), R.layout.rates_widget);
+                    views.setViewVisibility(VIEW_IDS[slot], View.GONE);
+                    shown[slot] = HIDDEN;
+                }
+                continue;
+            }
+
+            float stroke = STROKE_DP * context.getResources().getDisplayMetrics().density;
+            int[] points = project(series, width, height, stroke);
+            int shape = shapeHash(points, width, height);
+            if (shape == shown[slot]) {
+                continue;
+            }
+
+            Surface surface = obtain(slot, width, height);
+            draw(surface, points, COLORS[slot], stroke);
+            views = views != null ? views : new RemoteViews(context.getPackageName(), R.layout.rates_widget);
+            views.setImageViewBitmap(VIEW_IDS[slot], surface.bitmap);
+            views.setViewVisibility(VIEW_IDS[slot], View.VISIBLE);
+            shown[slot] = shape;
+        }
+
+        if (views == null) {
+            return;
+        }
+        try {
+            appWidgetManager.partiallyUpdateAppWidget(appWidgetId, views);
+        } catch (Exception e) {
+            Log.e(TAG, "Error pushing sparklines to widget " + appWidgetId, e);
+            shownShapes.remove(appWidgetId);
+        }
+    }
+
+    private static void hide(Context context, AppWidgetManager appWidgetManager, int appWidgetId, int[] shown) {
+        if (shown[0] == HIDDEN && shown[1] == HIDDEN) {
+            return;
+        }
+        RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.rates_widget);
+        for (int slot = 0; slot < INSTRUMENTS.length; slot++) {
+            views.setViewVisibility(VIEW_IDS[slot], View.GONE);
+            shown[slot] = HIDDEN;
+        }
+        appWidgetManager.partiallyUpdateAppWidget(appWidgetId, views);
+    }
+
+    /**
+     * Reduces the series to about one point per two pixels and maps it to pixel
+     * coordinates, returned as interleaved x, y pairs.
+     */
+    private static int[] project(HistorySeries.Series series, int width, int height, float stroke) {
+        int[] indices = SeriesDownsampler.sample(series.values, 0, series.size - 1, Math.max(2, width / 2));
+        float min = Float.MAX_VALUE;
+        float max = -Float.MAX_VALUE;
+        for (int index : indices) {
+            min = Math.min(min, series.values[index]);
+            max = Math.max(max, series.values[index]);
+        }
+        long start = series.timestamps[0];
+        long span = Math.max(1, series.timestamps[series.size - 1] - start);
+        float range = max > min ? max - min : 1;
+        float top = stroke;
+        float usable = height - 2 * stroke;
+
+        int[] points = new int[indices.length * 2];
+        for (int i = 0; i < indices.length; i++) {
+            int index = indices[i];
+            points[2 * i] = Math.round((series.timestamps[index] - start) * (width - 1) / (float) span);
+            // A flat series sits mid-height
+            float level = max > min ? (max - series.values[index]) / range : 0.5f;
+            points[2 * i + 1] = Math.round(top + level * usable);
+        }
+        return points;
+    }
+
+    private static int shapeHash(int[] points, int width, int height) {
+        int hash = 31 * width + height;
+        for (int value : points) {
+            hash = 31 * hash + value;
+        }
+        return hash == HIDDEN ? 1 : hash;
+    }
+
+    private static void draw(Surface surface, int[] points, int color, float stroke) {
+        surface.bitmap.eraseColor(Color.TRANSPARENT);
+        Path path = new Path();
+        path.moveTo(points[0], points[1]);
+        for (int i = 2; i < points.length; i += 2) {
+            path.lineTo(points[i], points[i + 1]);
+        }
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setStrokeWidth(stroke);
+        paint.setStrokeJoin(Paint.Join.ROUND);
+        paint.setColor(color);
+        surface.canvas.drawPath(path, paint);
+    }
+
+    private static Surface obtain(int slot, int width, int height) {
+        long key = ((long) width << 33) | ((long) height << 1) | slot;
+        Surface surface = pool.get(key);
+        if (surface == null) {
+            if (pool.size() >= MAX_POOLED) {
+                pool.clear();
+            }
+            surface = new Surface(width, height);
+            pool.put(key, surface);
+        }
+        return surface;
+    }
+}